@@ -0,0 +1,27 @@
+package relead.relead_schoolmanagement.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+@RequiredArgsConstructor
+public class AsyncConfig {
+
+    private final ImportProperties importProperties;
+
+    @Bean
+    public ThreadPoolTaskExecutor importExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(importProperties.getWorkerThreads());
+        executor.setMaxPoolSize(importProperties.getWorkerThreads());
+        executor.setQueueCapacity(importProperties.getQueueCapacity());
+        executor.setThreadNamePrefix("csv-import-");
+        // Priorité basse pour ne pas concurrencer les threads Tomcat du trafic interactif
+        executor.setThreadPriority(Thread.MIN_PRIORITY);
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+}
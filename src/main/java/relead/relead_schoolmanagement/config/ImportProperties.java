@@ -0,0 +1,27 @@
+package relead.relead_schoolmanagement.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "application.import")
+@Getter
+@Setter
+public class ImportProperties {
+    // Nombre de lignes écrites par batch JDBC et par transaction
+    private int batchSize = 1000;
+
+    // Imports asynchrones : fichiers spoolés sur disque et traités par un pool borné
+    private String spoolDir = System.getProperty("java.io.tmpdir") + "/relead-imports";
+    private int workerThreads = 2;
+    private int queueCapacity = 20;
+    private int retainedJobs = 100;
+    // Taille maximale d'un fichier une fois décompressé (protège le disque contre les archives piégées)
+    private long maxSpoolBytes = 2L * 1024 * 1024 * 1024;
+
+    // Au-delà de ce seuil un fichier spoolé est découpé et parsé en parallèle
+    private long parallelThresholdBytes = 32L * 1024 * 1024;
+    private int parseParallelism = Runtime.getRuntime().availableProcessors();
+}
@@ -0,0 +1,72 @@
+package relead.relead_schoolmanagement.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import relead.relead_schoolmanagement.dto.DeleteResult;
+import relead.relead_schoolmanagement.dto.ImportJob;
+import relead.relead_schoolmanagement.services.ImportJobService;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/students/imports")
+@RequiredArgsConstructor
+@Tag(name = "Student Imports", description = "Follow and cancel asynchronous CSV import jobs")
+@SecurityRequirement(name = "bearerAuth")
+public class ImportJobController {
+
+    private final ImportJobService importJobService;
+
+    @GetMapping
+    @Operation(summary = "List import jobs", description = "Most recent jobs first.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Success - Jobs retrieved"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - JWT token missing or invalid", content = @Content)
+    })
+    public ResponseEntity<List<ImportJob>> list() {
+        return ResponseEntity.ok(importJobService.list());
+    }
+
+    @GetMapping("/{jobId}")
+    @Operation(summary = "Get import job progress", description = "Rows processed, throughput, errors and ETA.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Success - Job found"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - JWT token missing or invalid", content = @Content),
+            @ApiResponse(responseCode = "404", description = "Not Found - Unknown job id", content = @Content)
+    })
+    public ResponseEntity<ImportJob> get(@PathVariable String jobId) {
+        return ResponseEntity.ok(importJobService.get(jobId));
+    }
+
+    @DeleteMapping("/{jobId}")
+    @Operation(summary = "Cancel an import job", description = "Chunks already committed are kept.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Accepted - Cancellation requested"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - JWT token missing or invalid", content = @Content),
+            @ApiResponse(responseCode = "404", description = "Not Found - Unknown job id", content = @Content),
+            @ApiResponse(responseCode = "409", description = "Conflict - Job already finished", content = @Content)
+    })
+    public ResponseEntity<ImportJob> cancel(@PathVariable String jobId) {
+        return ResponseEntity.accepted().body(importJobService.cancel(jobId));
+    }
+
+    @DeleteMapping("/{jobId}/students")
+    @Operation(summary = "Delete the students created by an import job", description = "Removes the rows inserted by "
+            + "this job (rows it only skipped are kept), in chunks of application.delete.chunk-size rows, each "
+            + "committed on its own. Also works for jobs no longer listed.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Success - Number of students deleted"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - JWT token missing or invalid", content = @Content),
+            @ApiResponse(responseCode = "409", description = "Conflict - Job still running", content = @Content)
+    })
+    public ResponseEntity<DeleteResult> deleteStudents(@PathVariable String jobId) {
+        return ResponseEntity.ok(importJobService.deleteStudents(jobId));
+    }
+}
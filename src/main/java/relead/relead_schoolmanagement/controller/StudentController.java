@@ -7,20 +7,41 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
-import org.springframework.core.io.InputStreamResource;
-import org.springframework.core.io.Resource;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import relead.relead_schoolmanagement.dto.BulkResult;
+import relead.relead_schoolmanagement.dto.CursorPage;
+import relead.relead_schoolmanagement.dto.DeleteResult;
+import relead.relead_schoolmanagement.dto.ImportJob;
+import relead.relead_schoolmanagement.dto.PageResponse;
+import relead.relead_schoolmanagement.dto.StudentCounts;
+import relead.relead_schoolmanagement.dto.StudentFilter;
+import relead.relead_schoolmanagement.dto.StudentLookup;
+import relead.relead_schoolmanagement.dto.StudentLookupRequest;
+import relead.relead_schoolmanagement.dto.StudentView;
 import relead.relead_schoolmanagement.entities.Level;
 import relead.relead_schoolmanagement.entities.Student;
+import relead.relead_schoolmanagement.exceptions.AppExceptions;
 import relead.relead_schoolmanagement.services.IStudentService;
+import relead.relead_schoolmanagement.services.ImportJobService;
+import relead.relead_schoolmanagement.services.StudentChangeTracker;
+import relead.relead_schoolmanagement.services.StudentCountService;
+import relead.relead_schoolmanagement.services.StudentService;
+import relead.relead_schoolmanagement.services.StudentSuggestService;
+import relead.relead_schoolmanagement.util.ColumnarStudentWriter;
 import relead.relead_schoolmanagement.util.Csv;
+import relead.relead_schoolmanagement.util.CsvCodec;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/students")
@@ -29,7 +50,18 @@ import relead.relead_schoolmanagement.util.Csv;
 @SecurityRequirement(name = "bearerAuth")
 public class StudentController {
 
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final String LISTING_ETAG_DOC = "The ETag changes with any committed write to the students, "
+            + "whoever makes it, and not with writes to other tables; a matching If-None-Match returns 304 after "
+            + "reading a one-row change counter.";
+    private static final String BULK_RESULT_DOC = "Items are processed independently: the response lists the "
+            + "status of each one, in request order, and a failed item does not roll back the others.";
+
     private final IStudentService studentService;
+    private final ImportJobService importJobService;
+    private final StudentCountService studentCountService;
+    private final StudentSuggestService studentSuggestService;
+    private final StudentChangeTracker changeTracker;
 
     @PostMapping
     @Operation(summary = "Créer un étudiant")
@@ -41,40 +73,119 @@ public class StudentController {
             @ApiResponse(responseCode = "500", description = "Server Error - Unexpected error", content = @Content)
     })
     public ResponseEntity<Student> create(@RequestBody Student student) {
-        return new ResponseEntity<>(studentService.create(student), HttpStatus.CREATED);
+        Student created = studentService.create(student);
+        return ResponseEntity.status(HttpStatus.CREATED).eTag(etag(created.getVersion())).body(created);
     }
 
     @GetMapping
-    @Operation(summary = "Récupérer tous les étudiants (avec pagination)")
+    @Operation(summary = "Récupérer tous les étudiants (avec pagination)", description = "count=false leaves out totalElements/totalPages and skips the SELECT COUNT(*); "
+            + "totals are then served by /api/students/stats. "
+            + LISTING_ETAG_DOC)
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Success - List retrieved successfully"),
+            @ApiResponse(responseCode = "304", description = "Not Modified - No student changed since the ETag in If-None-Match", content = @Content),
             @ApiResponse(responseCode = "401", description = "Unauthorized - JWT token missing or invalid", content = @Content),
             @ApiResponse(responseCode = "500", description = "Server Error", content = @Content)
     })
-    public ResponseEntity<Page<Student>> getAll(
+    public ResponseEntity<PageResponse<StudentView>> getAll(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(required = false) String sortBy,
-            @RequestParam(defaultValue = "ASC") String sortDirection
+            @RequestParam(defaultValue = "ASC") String sortDirection,
+            @RequestParam(defaultValue = "true") boolean count,
+            WebRequest request
     ) {
+        if (listingNotModified(request)) {
+            return null;
+        }
         Sort sort = null;
         if (sortBy != null && !sortBy.isBlank()) {
             Sort.Direction direction = Sort.Direction.fromString(sortDirection.toUpperCase());
             sort = Sort.by(direction, sortBy);
         }
-        return ResponseEntity.ok(studentService.getAll(page, size, sort));
+        return ResponseEntity.ok(PageResponse.of(count ? studentService.getAll(page, size, sort) : studentService.getSlice(page, size, sort)));
+    }
+
+    @GetMapping("/suggest")
+    @Operation(summary = "Autocomplétion des noms d'utilisateur", description = "Case-insensitive username prefix match, "
+            + "answered from an in-memory index (no database round trip). At most " + StudentSuggestService.MAX_LIMIT + " results.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Success - Suggestions retrieved"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - JWT token missing or invalid", content = @Content)
+    })
+    public ResponseEntity<List<StudentView>> suggest(
+            @RequestParam(defaultValue = "") String prefix,
+            @RequestParam(required = false) Level level,
+            @RequestParam(defaultValue = "10") int limit
+    ) {
+        return ResponseEntity.ok(studentSuggestService.suggest(prefix, level, limit));
+    }
+
+    @GetMapping("/stats")
+    @Operation(summary = "Nombre d'étudiants, total et par niveau", description = "Served from in-memory counters kept up to date "
+            + "by API writes, so it never costs a COUNT(*). Imports and writes made outside the API are picked up when the "
+            + "counters are reconciled with the table (see reconciledAt): after each import and every application.count.reconcile-interval.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Success - Counts retrieved"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - JWT token missing or invalid", content = @Content)
+    })
+    public ResponseEntity<StudentCounts> stats() {
+        return ResponseEntity.ok(studentCountService.getCounts());
+    }
+
+    @GetMapping(params = "after")
+    @Operation(summary = "Parcourir les étudiants par curseur (keyset)", description = "Pass an empty after= to get the first page, "
+            + "then the returned next cursor. Every page costs the same however deep it is. sortBy is id (default) or username. "
+            + LISTING_ETAG_DOC)
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Success - Page retrieved, next cursor included"),
+            @ApiResponse(responseCode = "400", description = "Bad Request - Invalid cursor or sort field", content = @Content),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - JWT token missing or invalid", content = @Content)
+    })
+    public ResponseEntity<CursorPage<StudentView>> scroll(
+            @RequestParam String after,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String sortBy,
+            @RequestParam(defaultValue = "ASC") String sortDirection,
+            WebRequest request
+    ) {
+        if (listingNotModified(request)) {
+            return null;
+        }
+        return ResponseEntity.ok(studentService.scroll(null, null, after, size, sortBy, sortDirection));
     }
 
     @GetMapping("/{id}")
-    @Operation(summary = "Récupérer un étudiant par ID")
+    @Operation(summary = "Récupérer un étudiant par ID", description = "The strong ETag is the row version; "
+            + "If-None-Match is checked against the cached student, without a database query nor serialization.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Success - Student found"),
+            @ApiResponse(responseCode = "304", description = "Not Modified - The student still has the version in If-None-Match", content = @Content),
             @ApiResponse(responseCode = "401", description = "Unauthorized - JWT token missing or invalid", content = @Content),
             @ApiResponse(responseCode = "404", description = "Not Found - Student with this ID does not exist", content = @Content),
             @ApiResponse(responseCode = "500", description = "Server Error", content = @Content)
     })
-    public ResponseEntity<Student> getById(@PathVariable Long id) {
-        return ResponseEntity.ok(studentService.getById(id));
+    public ResponseEntity<StudentView> getById(@PathVariable Long id, WebRequest request) {
+        StudentView student = studentService.getById(id);
+        String etag = etag(student.version());
+        if (etag != null && request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(student);
+    }
+
+    @PostMapping("/lookup")
+    @Operation(summary = "Récupérer plusieurs étudiants par ID ou nom d'utilisateur", description = "Resolves up to "
+            + StudentService.MAX_LOOKUP_KEYS + " ids and usernames (exact match) in one call. Students not in the cache "
+            + "are read together with one id = ANY(...) / username = ANY(...) query per chunk. "
+            + "Keys that match no student are listed in missingIds / missingUsernames.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Success - Found students and missing keys"),
+            @ApiResponse(responseCode = "400", description = "Bad Request - Too many keys", content = @Content),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - JWT token missing or invalid", content = @Content)
+    })
+    public ResponseEntity<StudentLookup> lookup(@RequestBody StudentLookupRequest request) {
+        return ResponseEntity.ok(studentService.lookup(request.getIds(), request.getUsernames()));
     }
 
     @PutMapping("/{id}")
@@ -88,7 +199,26 @@ public class StudentController {
             @ApiResponse(responseCode = "500", description = "Server Error", content = @Content)
     })
     public ResponseEntity<Student> update(@PathVariable Long id, @RequestBody Student student) {
-        return ResponseEntity.ok(studentService.update(id, student));
+        Student updated = studentService.update(id, student);
+        return ResponseEntity.ok().eTag(etag(updated.getVersion())).body(updated);
+    }
+
+    @PatchMapping("/{id}")
+    @Operation(summary = "Modifier partiellement un étudiant", description = "Only username and/or level given in the "
+            + "body are changed, with one UPDATE and no prior read. Send the ETag from GET /{id} in If-Match (or the "
+            + "version in the body) to update only if nobody changed the student since; without either the last write wins.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Success - Student updated, new ETag returned"),
+            @ApiResponse(responseCode = "400", description = "Bad Request - Nothing to update or invalid username", content = @Content),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - JWT token missing or invalid", content = @Content),
+            @ApiResponse(responseCode = "404", description = "Not Found - Student not found", content = @Content),
+            @ApiResponse(responseCode = "409", description = "Conflict - Username taken, or version in the body is stale", content = @Content),
+            @ApiResponse(responseCode = "412", description = "Precondition Failed - If-Match does not match the current ETag", content = @Content)
+    })
+    public ResponseEntity<Student> patch(@PathVariable Long id, @RequestBody Student changes,
+                                         @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Student patched = studentService.patch(id, changes, ifMatchVersion(ifMatch));
+        return ResponseEntity.ok().eTag(etag(patched.getVersion())).body(patched);
     }
 
     @DeleteMapping("/{id}")
@@ -104,69 +234,299 @@ public class StudentController {
         return ResponseEntity.noContent().build();
     }
 
+    @DeleteMapping("/levels/{level}")
+    @Operation(summary = "Supprimer tous les étudiants d'un niveau", description = "Deleted in chunks of "
+            + "application.delete.chunk-size rows, each committed on its own, so locks are held briefly.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Success - Number of students deleted"),
+            @ApiResponse(responseCode = "400", description = "Bad Request - Unknown level", content = @Content),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - JWT token missing or invalid", content = @Content)
+    })
+    public ResponseEntity<DeleteResult> deleteByLevel(@PathVariable Level level) {
+        return ResponseEntity.ok(new DeleteResult(studentService.deleteByLevel(level)));
+    }
+
+    @PostMapping("/bulk")
+    @Operation(summary = "Créer plusieurs étudiants", description = "Creates up to " + StudentService.MAX_BULK_ITEMS
+            + " students in one call with JDBC-batched inserts. " + BULK_RESULT_DOC)
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Success - One result per item (201, 400 or 409)"),
+            @ApiResponse(responseCode = "400", description = "Bad Request - Not an array or too many items", content = @Content),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - JWT token missing or invalid", content = @Content)
+    })
+    public ResponseEntity<BulkResult> bulkCreate(@RequestBody List<Student> students) {
+        return ResponseEntity.ok(studentService.bulkCreate(students));
+    }
+
+    @PatchMapping("/bulk")
+    @Operation(summary = "Mettre à jour plusieurs étudiants", description = "Each item needs an id; username and level "
+            + "are only changed when given. Up to " + StudentService.MAX_BULK_ITEMS + " items, JDBC-batched updates. "
+            + BULK_RESULT_DOC)
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Success - One result per item (200, 400, 404 or 409)"),
+            @ApiResponse(responseCode = "400", description = "Bad Request - Not an array or too many items", content = @Content),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - JWT token missing or invalid", content = @Content)
+    })
+    public ResponseEntity<BulkResult> bulkUpdate(@RequestBody List<Student> changes) {
+        return ResponseEntity.ok(studentService.bulkUpdate(changes));
+    }
+
+    @DeleteMapping("/bulk")
+    @Operation(summary = "Supprimer plusieurs étudiants", description = "Deletes up to " + StudentService.MAX_BULK_ITEMS
+            + " students by id with one DELETE ... WHERE id = ANY(...) per chunk. " + BULK_RESULT_DOC)
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Success - One result per item (204, 400 or 404)"),
+            @ApiResponse(responseCode = "400", description = "Bad Request - Not an array or too many items", content = @Content),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - JWT token missing or invalid", content = @Content)
+    })
+    public ResponseEntity<BulkResult> bulkDelete(@RequestBody List<Long> ids) {
+        return ResponseEntity.ok(studentService.bulkDelete(ids));
+    }
+
     @GetMapping("/search")
-    @Operation(summary = "Rechercher par nom d'utilisateur")
+    @Operation(summary = "Rechercher par nom d'utilisateur", description = "Results are ranked by trigram similarity; "
+            + "fuzzy=true also matches usernames containing a word close to the query (typos). "
+            + "count=false leaves out totalElements/totalPages and skips the SELECT COUNT(*). " + LISTING_ETAG_DOC)
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Success - Search results retrieved"),
+            @ApiResponse(responseCode = "304", description = "Not Modified - No student changed since the ETag in If-None-Match", content = @Content),
             @ApiResponse(responseCode = "401", description = "Unauthorized - JWT token missing or invalid", content = @Content),
             @ApiResponse(responseCode = "500", description = "Server Error", content = @Content)
     })
-    public ResponseEntity<Page<Student>> search(
+    public ResponseEntity<PageResponse<StudentView>> search(
             @RequestParam String query,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "true") boolean count,
+            @RequestParam(defaultValue = "false") boolean fuzzy,
+            WebRequest request
     ) {
-        return ResponseEntity.ok(studentService.searchByUsername(query, page, size));
+        if (listingNotModified(request)) {
+            return null;
+        }
+        return ResponseEntity.ok(PageResponse.of(count
+                ? studentService.searchByUsername(query, page, size, fuzzy)
+                : studentService.searchSliceByUsername(query, page, size, fuzzy)));
+    }
+
+    @GetMapping(value = "/search", params = "after")
+    @Operation(summary = "Rechercher par nom d'utilisateur (keyset)")
+    public ResponseEntity<CursorPage<StudentView>> searchScroll(
+            @RequestParam String query,
+            @RequestParam String after,
+            @RequestParam(defaultValue = "10") int size,
+            WebRequest request
+    ) {
+        if (listingNotModified(request)) {
+            return null;
+        }
+        return ResponseEntity.ok(studentService.scroll(null, query, after, size, null, null));
     }
 
     @GetMapping("/filter")
-    @Operation(summary = "Filtrer par niveau scolaire")
+    @Operation(summary = "Filtrer par niveau scolaire", description = "count=false leaves out totalElements/totalPages and skips the SELECT COUNT(*); "
+            + "totals are then served by /api/students/stats. "
+            + LISTING_ETAG_DOC)
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Success - Filtered results retrieved"),
+            @ApiResponse(responseCode = "304", description = "Not Modified - No student changed since the ETag in If-None-Match", content = @Content),
             @ApiResponse(responseCode = "400", description = "Bad Request - Invalid level value", content = @Content),
             @ApiResponse(responseCode = "401", description = "Unauthorized - JWT token missing or invalid", content = @Content),
             @ApiResponse(responseCode = "500", description = "Server Error", content = @Content)
     })
-    public ResponseEntity<Page<Student>> filterByLevel(
+    public ResponseEntity<PageResponse<StudentView>> filterByLevel(
+            @RequestParam Level level,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "true") boolean count,
+            WebRequest request
+    ) {
+        if (listingNotModified(request)) {
+            return null;
+        }
+        return ResponseEntity.ok(PageResponse.of(count
+                ? studentService.filterByLevel(level, page, size)
+                : studentService.filterSliceByLevel(level, page, size)));
+    }
+
+    @GetMapping(value = "/filter", params = "after")
+    @Operation(summary = "Filtrer par niveau scolaire (keyset)")
+    public ResponseEntity<CursorPage<StudentView>> filterScroll(
             @RequestParam Level level,
+            @RequestParam String after,
+            @RequestParam(defaultValue = "10") int size,
+            WebRequest request
+    ) {
+        if (listingNotModified(request)) {
+            return null;
+        }
+        return ResponseEntity.ok(studentService.scroll(level, null, after, size, null, null));
+    }
+
+    @GetMapping("/query")
+    @Operation(summary = "Rechercher avec des critères combinés", description = "All criteria are optional and combined in a "
+            + "single SQL statement: level (repeatable), username (case-insensitive substring), minId/maxId (inclusive). "
+            + "sortBy is id (default), username or level, id breaking ties. "
+            + "count=false leaves out totalElements/totalPages and skips the SELECT COUNT(*). " + LISTING_ETAG_DOC)
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Success - Matching students retrieved"),
+            @ApiResponse(responseCode = "304", description = "Not Modified - No student changed since the ETag in If-None-Match", content = @Content),
+            @ApiResponse(responseCode = "400", description = "Bad Request - Invalid level, sort field or direction", content = @Content),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - JWT token missing or invalid", content = @Content)
+    })
+    public ResponseEntity<PageResponse<StudentView>> query(
+            @RequestParam(required = false) Set<Level> level,
+            @RequestParam(required = false) String username,
+            @RequestParam(required = false) Long minId,
+            @RequestParam(required = false) Long maxId,
+            @RequestParam(defaultValue = "id") String sortBy,
+            @RequestParam(defaultValue = "ASC") String sortDirection,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "true") boolean count,
+            WebRequest request
     ) {
-        return ResponseEntity.ok(studentService.filterByLevel(level, page, size));
+        if (listingNotModified(request)) {
+            return null;
+        }
+        StudentFilter filter = new StudentFilter(level, username, minId, maxId);
+        return ResponseEntity.ok(PageResponse.of(studentService.query(filter, page, size, sortBy, sortDirection, count)));
     }
 
     @PostMapping(value = "/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    @Operation(summary = "Import students from CSV", description = "Upload a CSV file to add students in bulk.")
+    @Operation(summary = "Import students from CSV", description = "Upload a CSV file to add students in bulk. "
+            + "A gzip-compressed file (.csv.gz) is inflated on the fly. "
+            + "With async=true the file is spooled to disk and imported in the background. "
+            + "With bulk=true the file is loaded through PostgreSQL COPY and merged in one statement "
+            + "(updateLevel=true overwrites the level of existing usernames).")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "File uploaded and data saved"),
-            @ApiResponse(responseCode = "400", description = "Invalid file format (must be CSV)", content = @Content),
+            @ApiResponse(responseCode = "200", description = "File imported - summary of inserted, skipped and rejected rows"),
+            @ApiResponse(responseCode = "202", description = "Accepted - Import job queued (async=true)"),
+            @ApiResponse(responseCode = "400", description = "Invalid file format (must be CSV or gzip-compressed CSV)", content = @Content),
+            @ApiResponse(responseCode = "409", description = "Conflict - The same file is already being imported (async=true)", content = @Content),
+            @ApiResponse(responseCode = "503", description = "Import queue is full", content = @Content),
             @ApiResponse(responseCode = "500", description = "Server Error", content = @Content)
     })
-    public ResponseEntity<String> uploadFile(@RequestParam("file") MultipartFile file) {
-        if (Csv.hasCSVFormat(file)) {
-            try {
-                studentService.saveFromCsv(file);
-                return ResponseEntity.status(HttpStatus.OK).body("Uploaded the file successfully: " + file.getOriginalFilename());
-            } catch (Exception e) {
-                return ResponseEntity.status(HttpStatus.EXPECTATION_FAILED).body("Could not upload the file: " + file.getOriginalFilename() + "!");
-            }
+    public ResponseEntity<Object> uploadFile(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(defaultValue = "false") boolean async,
+            @RequestParam(defaultValue = "false") boolean bulk,
+            @RequestParam(defaultValue = "false") boolean updateLevel
+    ) {
+        if (!Csv.hasCSVFormat(file)) {
+            throw new AppExceptions.BadRequestException("Please upload a csv file!");
+        }
+        if (bulk) {
+            return ResponseEntity.ok(studentService.bulkSaveFromCsv(file, updateLevel));
         }
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Please upload a csv file!");
+        if (async) {
+            ImportJob job = importJobService.submit(file);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/students/imports/" + job.getId()))
+                    .body(job);
+        }
+        return ResponseEntity.ok(studentService.saveFromCsv(file));
     }
 
     // --- EXPORT CSV ---
     @GetMapping("/export")
-    @Operation(summary = "Export students to CSV", description = "Download a CSV file containing all students.")
-    public ResponseEntity<Resource> getFile() {
-        String filename = "students.csv";
-        InputStreamResource file = new InputStreamResource(studentService.loadCsv());
+    @Operation(summary = "Export students to CSV", description = "Download a CSV file containing all students. "
+            + "Rows are streamed from a database cursor; the file is gzip-encoded when the client accepts it. "
+            + "The X-Next-Cursor header can be passed back as since=<cursor> to download only the rows created, "
+            + "changed or deleted (Deleted=true) since then, as Id,Username,Level,Deleted. "
+            + "format=columnar (or Accept: " + ColumnarStudentWriter.MEDIA_TYPE + ") returns the full export in the "
+            + "columnar binary layout described in ColumnarStudentWriter. "
+            + "Full exports carry Last-Modified and honour If-Modified-Since.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Success - CSV streamed, next cursor in X-Next-Cursor"),
+            @ApiResponse(responseCode = "304", description = "Not Modified - No student changed since If-Modified-Since", content = @Content),
+            @ApiResponse(responseCode = "400", description = "Bad Request - Invalid cursor or format", content = @Content),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - JWT token missing or invalid", content = @Content)
+    })
+    public ResponseEntity<StreamingResponseBody> getFile(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestParam(required = false) Long since,
+            @RequestParam(required = false) String format,
+            WebRequest request
+    ) {
+        if (since != null && since < 0) {
+            throw new AppExceptions.BadRequestException("Invalid cursor: " + since);
+        }
+        boolean columnar = isColumnar(format, accept);
+        if (columnar && since != null) {
+            throw new AppExceptions.BadRequestException("Delta exports are only available as CSV");
+        }
+        // pas d'ETag : un ETag fort devrait changer avec Content-Encoding
+        long lastModified = since == null ? changeTracker.lastModified() : -1;
+        if (lastModified >= 0 && request.checkNotModified(lastModified)) {
+            return null;
+        }
+        CsvCodec codec = CsvCodec.negotiate(acceptEncoding);
+        // le curseur est lu avant l'export : ce qui est commité entre-temps sera renvoyé au prochain delta
+        long nextCursor = studentService.changeCursor();
+
+        String filename;
+        MediaType contentType;
+        StreamingResponseBody body;
+        if (columnar) {
+            filename = "students.rlds";
+            contentType = MediaType.parseMediaType(ColumnarStudentWriter.MEDIA_TYPE);
+            body = out -> studentService.exportColumnar(codec.encode(out));
+        } else {
+            filename = since == null ? "students.csv" : "students-changes.csv";
+            contentType = MediaType.parseMediaType("application/csv");
+            body = since == null
+                    ? out -> studentService.exportCsv(codec.encode(out))
+                    : out -> studentService.exportChangesCsv(since, nextCursor, codec.encode(out));
+        }
 
-        return ResponseEntity.ok()
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename)
-                .contentType(MediaType.parseMediaType("application/csv"))
-                .body(file);
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING + ", " + HttpHeaders.ACCEPT)
+                .header(NEXT_CURSOR_HEADER, Long.toString(nextCursor))
+                .contentType(contentType);
+        if (codec != CsvCodec.IDENTITY) {
+            response.header(HttpHeaders.CONTENT_ENCODING, codec.getContentEncoding());
+        }
+        return response.body(body);
     }
 
+    // 304 avant la requête de la liste : l'ETag ne dépend que du compteur de modifications
+    private boolean listingNotModified(WebRequest request) {
+        return request.checkNotModified(changeTracker.etag());
+    }
 
+    private static String etag(Long version) {
+        return version == null ? null : "\"" + version + "\"";
+    }
 
-}
\ No newline at end of file
+    // Inverse de etag(version) ; "*" n'impose que l'existence, vérifiée de toute façon par l'UPDATE
+    private static Long ifMatchVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        // If-Match compare fortement : un ETag faible ou illisible ne peut pas correspondre
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            try {
+                return Long.valueOf(tag.substring(1, tag.length() - 1));
+            } catch (NumberFormatException e) {
+                // traité comme une version inconnue ci-dessous
+            }
+        }
+        throw new AppExceptions.PreconditionFailedException("If-Match " + ifMatch + " does not match any version of this student");
+    }
+
+    // ?format= l'emporte sur l'en-tête Accept
+    private static boolean isColumnar(String format, String accept) {
+        if (format != null) {
+            return switch (format.toLowerCase()) {
+                case "csv" -> false;
+                case "columnar" -> true;
+                default -> throw new AppExceptions.BadRequestException("Unsupported export format: " + format);
+            };
+        }
+        return accept != null && accept.contains(ColumnarStudentWriter.MEDIA_TYPE);
+    }
+}
@@ -0,0 +1,30 @@
+package relead.relead_schoolmanagement.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk create, update or delete: one item per element of the request, in the same order.
+ * Items are independent, a rejected item does not prevent the others from being written.
+ */
+public record BulkResult(int succeeded, int failed, List<Item> items) {
+
+    /**
+     * @param status HTTP status the item would have had as a single-row call (201, 200, 204, 400, 404, 409)
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Item(int index, Long id, int status, String error) {
+
+        @JsonIgnore
+        public boolean isSuccess() {
+            return status < 300;
+        }
+    }
+
+    public static BulkResult of(List<Item> items) {
+        int succeeded = (int) items.stream().filter(Item::isSuccess).count();
+        return new BulkResult(succeeded, items.size() - succeeded, items);
+    }
+}
@@ -0,0 +1,22 @@
+package relead.relead_schoolmanagement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * One page of a keyset (seek) listing. {@code next} is the opaque cursor to pass as {@code after}
+ * to get the following page, it is null on the last page.
+ */
+@Getter
+@AllArgsConstructor
+public class CursorPage<T> {
+    private final List<T> content;
+    private final int size;
+    private final String next;
+
+    public boolean isHasNext() {
+        return next != null;
+    }
+}
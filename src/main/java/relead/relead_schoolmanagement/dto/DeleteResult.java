@@ -0,0 +1,9 @@
+package relead.relead_schoolmanagement.dto;
+
+/**
+ * Outcome of a set-based delete (by level, by import job).
+ *
+ * @param deleted number of students removed
+ */
+public record DeleteResult(long deleted) {
+}
@@ -0,0 +1,63 @@
+package relead.relead_schoolmanagement.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Duration;
+import java.time.Instant;
+
+@Getter
+@Setter
+public class ImportJob {
+
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED
+    }
+
+    private final String id;
+    private final String fileName;
+    private final long totalBytes;
+    private final Instant submittedAt = Instant.now();
+    private final ImportSummary summary = new ImportSummary();
+
+    private volatile Status status = Status.QUEUED;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile long bytesRead;
+    private volatile boolean cancelRequested;
+    private volatile String failureMessage;
+    // SHA-256 du fichier spoolé, clé du checkpoint de reprise
+    private volatile String checksum;
+    private volatile long resumedFromLine;
+    private volatile long resumedFromOffset;
+
+    public ImportJob(String id, String fileName, long totalBytes) {
+        this.id = id;
+        this.fileName = fileName;
+        this.totalBytes = totalBytes;
+    }
+
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED || status == Status.CANCELLED;
+    }
+
+    public double getRowsPerSecond() {
+        if (startedAt == null) {
+            return 0;
+        }
+        Instant end = finishedAt == null ? Instant.now() : finishedAt;
+        long millis = Math.max(1, Duration.between(startedAt, end).toMillis());
+        return summary.getProcessed() * 1000.0 / millis;
+    }
+
+    // Estimation basée sur la proportion d'octets déjà lus dans le fichier spoolé
+    public Long getEtaSeconds() {
+        long bytesThisRun = bytesRead - resumedFromOffset;
+        if (status != Status.RUNNING || bytesThisRun <= 0 || totalBytes == 0) {
+            return null;
+        }
+        long elapsedMillis = Duration.between(startedAt, Instant.now()).toMillis();
+        long remainingBytes = Math.max(0, totalBytes - bytesRead);
+        return elapsedMillis * remainingBytes / bytesThisRun / 1000;
+    }
+}
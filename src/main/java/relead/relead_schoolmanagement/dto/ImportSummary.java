@@ -0,0 +1,58 @@
+package relead.relead_schoolmanagement.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+@Data
+@NoArgsConstructor
+public class ImportSummary {
+    // On garde seulement les premières erreurs pour que la mémoire reste bornée
+    public static final int MAX_REPORTED_ERRORS = 100;
+
+    // Lu par les requêtes de suivi des jobs pendant l'import
+    private volatile long inserted;
+    private volatile long updated;
+    private volatile long skipped;
+    private volatile long rejected;
+    private List<String> errors = new CopyOnWriteArrayList<>();
+
+    // Les compteurs peuvent être alimentés par plusieurs threads de parsing en mode parallèle
+    public synchronized void reject(long lineNumber, String reason) {
+        rejected++;
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add("line " + lineNumber + ": " + reason);
+        }
+    }
+
+    public synchronized void addInserted(long count) {
+        inserted += count;
+    }
+
+    public synchronized void addUpdated(long count) {
+        updated += count;
+    }
+
+    public synchronized void addSkipped(long count) {
+        skipped += count;
+    }
+
+    public synchronized void addRejected(long count) {
+        rejected += count;
+    }
+
+    public synchronized void addErrors(List<String> lineErrors) {
+        for (String error : lineErrors) {
+            if (errors.size() >= MAX_REPORTED_ERRORS) {
+                return;
+            }
+            errors.add(error);
+        }
+    }
+
+    public long getProcessed() {
+        return inserted + updated + skipped + rejected;
+    }
+}
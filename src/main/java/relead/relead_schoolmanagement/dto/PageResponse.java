@@ -0,0 +1,33 @@
+package relead.relead_schoolmanagement.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+
+/**
+ * Stable JSON envelope for offset pagination, in place of Spring's Page serialization (pageable, sort, ...).
+ * {@code totalElements} and {@code totalPages} are only present when the total was counted (count=true).
+ */
+@Getter
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PageResponse<T> {
+    private final List<T> content;
+    private final int page;
+    private final int size;
+    private final boolean hasNext;
+    private final Long totalElements;
+    private final Integer totalPages;
+
+    public static <T> PageResponse<T> of(Slice<T> slice) {
+        if (slice instanceof Page<T> page) {
+            return new PageResponse<>(page.getContent(), page.getNumber(), page.getSize(), page.hasNext(),
+                    page.getTotalElements(), page.getTotalPages());
+        }
+        return new PageResponse<>(slice.getContent(), slice.getNumber(), slice.getSize(), slice.hasNext(), null, null);
+    }
+}
@@ -0,0 +1,22 @@
+package relead.relead_schoolmanagement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import relead.relead_schoolmanagement.entities.Level;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Student totals as of {@code asOf}. Writes made outside the API (imports, SQL) are only reflected once the
+ * counters have been reconciled with the table, which last happened at {@code reconciledAt}.
+ */
+@Getter
+@AllArgsConstructor
+public class StudentCounts {
+    private final long total;
+    // les étudiants sans niveau ne sont comptés que dans total
+    private final Map<Level, Long> byLevel;
+    private final Instant asOf;
+    private final Instant reconciledAt;
+}
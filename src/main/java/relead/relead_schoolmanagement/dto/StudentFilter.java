@@ -0,0 +1,15 @@
+package relead.relead_schoolmanagement.dto;
+
+import relead.relead_schoolmanagement.entities.Level;
+
+import java.util.Set;
+
+/**
+ * Criteria of {@code GET /api/students/query}; every field is optional.
+ *
+ * @param username case-insensitive substring of the username
+ * @param minId    inclusive lower bound of the id
+ * @param maxId    inclusive upper bound of the id
+ */
+public record StudentFilter(Set<Level> levels, String username, Long minId, Long maxId) {
+}
@@ -0,0 +1,12 @@
+package relead.relead_schoolmanagement.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of {@code POST /api/students/lookup}: the students found, keyed by the requested id or username in
+ * request order, and the requested keys that matched no student.
+ */
+public record StudentLookup(Map<Long, StudentView> byId, Map<String, StudentView> byUsername,
+                            List<Long> missingIds, List<String> missingUsernames) {
+}
@@ -0,0 +1,15 @@
+package relead.relead_schoolmanagement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+public class StudentLookupRequest {
+    private List<Long> ids;
+    private List<String> usernames;
+}
@@ -0,0 +1,19 @@
+package relead.relead_schoolmanagement.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import relead.relead_schoolmanagement.entities.Level;
+import relead.relead_schoolmanagement.entities.Student;
+
+/**
+ * Read-only view of a student returned by the listing endpoints. Repositories build it straight from the
+ * selected columns, so no entity is hydrated nor tracked by the persistence context.
+ * <p>
+ * {@code version} is the row version behind the ETag; it is not serialized, and is null for views built from the
+ * autocomplete index, which does not keep it.
+ */
+public record StudentView(Long id, String username, Level level, @JsonIgnore Long version) {
+
+    public static StudentView of(Student s) {
+        return new StudentView(s.getId(), s.getUsername(), s.getLevel(), s.getVersion());
+    }
+}
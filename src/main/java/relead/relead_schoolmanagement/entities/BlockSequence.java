@@ -0,0 +1,23 @@
+package relead.relead_schoolmanagement.entities;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Ids taken from a PostgreSQL sequence {@link #blockSize()} values per round trip (see {@link BlockSequenceGenerator}).
+ * Ids are known before the INSERT, so Hibernate can batch inserts, which it cannot do with IDENTITY.
+ */
+@IdGeneratorType(BlockSequenceGenerator.class)
+@Retention(RUNTIME)
+@Target(FIELD)
+public @interface BlockSequence {
+
+    String sequence();
+
+    int blockSize() default 50;
+}
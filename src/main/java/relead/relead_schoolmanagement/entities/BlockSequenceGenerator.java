@@ -0,0 +1,56 @@
+package relead.relead_schoolmanagement.entities;
+
+import org.hibernate.engine.jdbc.spi.JdbcCoordinator;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Generator behind {@link BlockSequence}: {@code nextval} is called blockSize times in a single query and the
+ * values are handed out one by one, across sessions.
+ * <p>
+ * Unlike a pooled sequence (INCREMENT BY 50) the sequence keeps an increment of 1: the SQL imports, which take
+ * their ids from the column default, consume one value per row instead of a whole block.
+ */
+public class BlockSequenceGenerator implements IdentifierGenerator {
+
+    private final String sequence;
+    private final String sql;
+    // valeurs déjà réservées, distribuées sous le verrou de l'instance
+    private final Deque<Long> ids = new ArrayDeque<>();
+
+    public BlockSequenceGenerator(BlockSequence config) {
+        this.sequence = config.sequence();
+        this.sql = "SELECT nextval('" + config.sequence() + "') FROM generate_series(1, " + config.blockSize() + ")";
+    }
+
+    @Override
+    public synchronized Object generate(SharedSessionContractImplementor session, Object object) {
+        if (ids.isEmpty()) {
+            reserve(session);
+        }
+        return ids.poll();
+    }
+
+    private void reserve(SharedSessionContractImplementor session) {
+        JdbcCoordinator jdbc = session.getJdbcCoordinator();
+        PreparedStatement ps = jdbc.getStatementPreparer().prepareStatement(sql);
+        try {
+            ResultSet rs = jdbc.getResultSetReturn().extract(ps, sql);
+            while (rs.next()) {
+                ids.add(rs.getLong(1));
+            }
+        } catch (SQLException e) {
+            throw session.getJdbcServices().getSqlExceptionHelper()
+                    .convert(e, "Could not reserve ids from sequence " + sequence, sql);
+        } finally {
+            jdbc.getLogicalConnection().getResourceRegistry().release(ps);
+            jdbc.afterStatementExecution();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package relead.relead_schoolmanagement.entities;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "import_state")
+@NoArgsConstructor
+@Getter
+@Setter
+public class ImportCheckpoint {
+
+    public enum Status {
+        IN_PROGRESS, COMPLETED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // SHA-256 du fichier spoolé : identifie un même fichier ré-uploadé
+    @Column(name = "checksum", unique = true, nullable = false, length = 64)
+    private String checksum;
+
+    @Column(name = "file_name")
+    private String fileName;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private Status status;
+
+    // Premier octet et dernière ligne après le dernier chunk commité
+    @Column(name = "committed_offset", nullable = false)
+    private long committedOffset;
+
+    @Column(name = "committed_line", nullable = false)
+    private long committedLine;
+
+    @Column(name = "inserted", nullable = false)
+    private long inserted;
+
+    @Column(name = "skipped", nullable = false)
+    private long skipped;
+
+    @Column(name = "rejected", nullable = false)
+    private long rejected;
+
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+
+    public ImportCheckpoint(String checksum, String fileName) {
+        this.checksum = checksum;
+        this.fileName = fileName;
+        this.status = Status.IN_PROGRESS;
+    }
+
+    public boolean isResumable() {
+        return status == Status.IN_PROGRESS && committedOffset > 0;
+    }
+}
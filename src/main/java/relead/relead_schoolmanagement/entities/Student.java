@@ -1,19 +1,37 @@
 package relead.relead_schoolmanagement.entities;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import relead.relead_schoolmanagement.dto.StudentView;
+
+import java.time.Instant;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_student_change_xid", columnList = "change_xid, id"),
+        // pagination par clé (keyset) : (colonne de tri, id)
+        @Index(name = "idx_student_username_id", columnList = "username, id"),
+        @Index(name = "idx_student_level_id", columnList = "level, id")
+})
+// Projection des requêtes natives (recherche trigram) : level est un varchar côté SQL
+@SqlResultSetMapping(name = "StudentView", classes = @ConstructorResult(targetClass = StudentView.class, columns = {
+        @ColumnResult(name = "id", type = Long.class),
+        @ColumnResult(name = "username", type = String.class),
+        @ColumnResult(name = "level", type = Level.class),
+        @ColumnResult(name = "version", type = Long.class)
+}))
 @NoArgsConstructor
 @AllArgsConstructor
 @Getter
 @Setter
 public class Student {
+    // Séquence partagée avec les imports SQL (valeur par défaut de la colonne, schema.sql)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @BlockSequence(sequence = "student_id_seq")
     private Long id;
 
     @Column(unique = true, nullable = false)
@@ -21,4 +39,31 @@ public class Student {
 
     @Enumerated(EnumType.STRING)
     private Level level;
+
+    // Verrou optimiste et ETag ; le trigger student_track_change l'incrémente aussi pour les écritures SQL
+    @Version
+    private Long version;
+
+    // Maintenus par le trigger student_track_change (schema.sql) pour toutes les écritures, JPA ou SQL :
+    // identifiant de la dernière transaction ayant modifié la ligne, sert de curseur à l'export delta.
+    // Pas relus après l'écriture (@Generated) : l'INSERT ... RETURNING qui en résulte désactive le batch JDBC.
+    // Valeurs non fiables après create/update, donc hors JSON comme dans StudentView.
+    @JsonIgnore
+    @Column(name = "change_xid", insertable = false, updatable = false)
+    private Long changeXid;
+
+    @JsonIgnore
+    @Column(name = "updated_at", insertable = false, updatable = false)
+    private Instant updatedAt;
+
+    // Job d'import asynchrone ayant créé la ligne, null pour les autres écritures (suppression par job)
+    @JsonIgnore
+    @Column(name = "import_job", updatable = false)
+    private String importJob;
+
+    public Student(Long id, String username, Level level) {
+        this.id = id;
+        this.username = username;
+        this.level = level;
+    }
 }
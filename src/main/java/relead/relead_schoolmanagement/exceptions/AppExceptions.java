@@ -17,11 +17,23 @@ public class AppExceptions {
         }
     }
 
+    public static class PreconditionFailedException extends RuntimeException {
+        public PreconditionFailedException(String message) {
+            super(message); //412
+        }
+    }
+
     public static class BadRequestException extends RuntimeException {
         public BadRequestException(String message) {
             super(message); //400
         }
     }
+    public static class ServiceUnavailableException extends RuntimeException {
+        public ServiceUnavailableException(String message) {
+            super(message); //503
+        }
+    }
+
     public static class CsvImportException extends RuntimeException {
         public CsvImportException(String message) {
             super(message); // Sera souvent 400 ou 500 selon le cas
@@ -1,10 +1,12 @@
 package relead.relead_schoolmanagement.exceptions;
 
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
@@ -32,16 +34,38 @@ public class GlobalExceptionHandler {
         return buildResponse(ex.getMessage(), HttpStatus.CONFLICT); // 409
     }
 
+    @ExceptionHandler(AppExceptions.PreconditionFailedException.class)
+    public ResponseEntity<Map<String, Object>> handlePreconditionFailed(AppExceptions.PreconditionFailedException ex) {
+        return buildResponse(ex.getMessage(), HttpStatus.PRECONDITION_FAILED); // 412
+    }
+
+    // Contrainte unique violée par une écriture concurrente que la vérification préalable n'a pas vue
+    @ExceptionHandler(DuplicateKeyException.class)
+    public ResponseEntity<Map<String, Object>> handleDuplicateKey(DuplicateKeyException ex) {
+        return buildResponse("Resource already exists", HttpStatus.CONFLICT); // 409
+    }
+
     @ExceptionHandler(AppExceptions.BadRequestException.class)
     public ResponseEntity<Map<String, Object>> handleBadRequest(AppExceptions.BadRequestException ex) {
         return buildResponse(ex.getMessage(), HttpStatus.BAD_REQUEST); // 400
     }
 
+    @ExceptionHandler(AppExceptions.ServiceUnavailableException.class)
+    public ResponseEntity<Map<String, Object>> handleServiceUnavailable(AppExceptions.ServiceUnavailableException ex) {
+        return buildResponse(ex.getMessage(), HttpStatus.SERVICE_UNAVAILABLE); // 503
+    }
+
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<Map<String, Object>> handleIllegalArgument(IllegalArgumentException ex) {
         return buildResponse(ex.getMessage(), HttpStatus.BAD_REQUEST);
     }
 
+    // Paramètre de chemin ou de requête illisible, par exemple un niveau inconnu
+    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+    public ResponseEntity<Map<String, Object>> handleTypeMismatch(MethodArgumentTypeMismatchException ex) {
+        return buildResponse("Invalid value '" + ex.getValue() + "' for parameter " + ex.getName(), HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Map<String, Object>> handleValidationErrors(MethodArgumentNotValidException ex) {
         StringBuilder sb = new StringBuilder();
@@ -0,0 +1,10 @@
+package relead.relead_schoolmanagement.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import relead.relead_schoolmanagement.entities.ImportCheckpoint;
+
+import java.util.Optional;
+
+public interface ImportCheckpointRepository extends JpaRepository<ImportCheckpoint, Long> {
+    Optional<ImportCheckpoint> findByChecksum(String checksum);
+}
@@ -2,14 +2,61 @@ package relead.relead_schoolmanagement.repositories;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.NativeQuery;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import relead.relead_schoolmanagement.dto.StudentView;
 import relead.relead_schoolmanagement.entities.Level;
 import relead.relead_schoolmanagement.entities.Student;
 
+import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 
-public interface StudentRepository extends JpaRepository<Student, Long> {
+public interface StudentRepository extends JpaRepository<Student, Long>, StudentRepositoryCustom {
+
+    // lower(username) LIKE et <% passent par l'index GIN trigram idx_student_username_trgm (schema.sql)
+    String SEARCH_WHERE = " FROM student WHERE lower(username) LIKE :pattern";
+    String FUZZY_SEARCH_WHERE = SEARCH_WHERE + " OR :q <% lower(username)";
+    String SEARCH_ORDER = " ORDER BY similarity(lower(username), :q) DESC, id";
+    String VIEW_COLUMNS = "id, username, level, version";
+
     Optional<Student> findByUsername(String username);
-    Page<Student> findByUsernameContainingIgnoreCase(String username, Pageable pageable);
-    Page<Student> findByLevel(Level level, Pageable pageable);
+
+    // Projections StudentView pour les lectures : seules les colonnes affichées, aucune entité gérée
+    Optional<StudentView> findViewById(Long id);
+    Optional<StudentView> findViewByUsername(String username);
+    Page<StudentView> findViewsBy(Pageable pageable);
+    Page<StudentView> findViewsByLevel(Level level, Pageable pageable);
+
+    // Variantes Slice : une ligne de plus au lieu d'un SELECT COUNT(*)
+    Slice<StudentView> findSliceBy(Pageable pageable);
+    Slice<StudentView> findSliceByLevel(Level level, Pageable pageable);
+
+    /*
+     * Recherche par sous-chaîne classée par similarité trigram. pattern vient de containsPattern(q), q est la
+     * requête en minuscules. Les variantes fuzzy acceptent aussi un mot proche de q (fautes de frappe).
+     */
+    @NativeQuery(sqlResultSetMapping = "StudentView", value = "SELECT " + VIEW_COLUMNS + SEARCH_WHERE + SEARCH_ORDER, countQuery = "SELECT count(*)" + SEARCH_WHERE)
+    Page<StudentView> searchByUsername(@Param("pattern") String pattern, @Param("q") String q, Pageable pageable);
+
+    @NativeQuery(sqlResultSetMapping = "StudentView", value = "SELECT " + VIEW_COLUMNS + FUZZY_SEARCH_WHERE + SEARCH_ORDER, countQuery = "SELECT count(*)" + FUZZY_SEARCH_WHERE)
+    Page<StudentView> fuzzySearchByUsername(@Param("pattern") String pattern, @Param("q") String q, Pageable pageable);
+
+    @NativeQuery(sqlResultSetMapping = "StudentView", value = "SELECT " + VIEW_COLUMNS + SEARCH_WHERE + SEARCH_ORDER)
+    Slice<StudentView> searchSliceByUsername(@Param("pattern") String pattern, @Param("q") String q, Pageable pageable);
+
+    @NativeQuery(sqlResultSetMapping = "StudentView", value = "SELECT " + VIEW_COLUMNS + FUZZY_SEARCH_WHERE + SEARCH_ORDER)
+    Slice<StudentView> fuzzySearchSliceByUsername(@Param("pattern") String pattern, @Param("q") String q, Pageable pageable);
+
+    @Query("select s.level, count(s) from Student s group by s.level")
+    List<Object[]> countGroupedByLevel();
+
+    // Motif LIKE '%q%' en minuscules, les jokers saisis par l'utilisateur sont échappés
+    static String containsPattern(String q) {
+        String lower = q == null ? "" : q.toLowerCase(Locale.ROOT);
+        return "%" + lower.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
 }
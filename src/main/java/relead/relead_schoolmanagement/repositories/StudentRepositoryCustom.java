@@ -0,0 +1,139 @@
+package relead.relead_schoolmanagement.repositories;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+import relead.relead_schoolmanagement.dto.StudentView;
+import relead.relead_schoolmanagement.entities.Level;
+import relead.relead_schoolmanagement.entities.Student;
+import relead.relead_schoolmanagement.util.KeysetCursor;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+public interface StudentRepositoryCustom {
+
+    record MergeCounts(long staged, long inserted, long updated) {
+    }
+
+    // Résultat d'un PATCH ou d'une mise à jour en masse : la ligne avant et après la mise à jour
+    record Patched(StudentView before, Student after) {
+    }
+
+    // Une ligne de l'export delta : level est null pour une suppression
+    record ChangeRow(long id, String username, Level level, boolean deleted) {
+    }
+
+    // Compteur de modifications de student_change ; dates en millisecondes, now à l'horloge de la base
+    record ChangeCounter(long value, long changedAt, long now) {
+    }
+
+    /**
+     * Inserts the given students in a single round trip, silently ignoring usernames that already exist.
+     * @return the number of rows actually inserted
+     */
+    int insertIgnoringDuplicates(List<Student> students);
+
+    /**
+     * Inserts one student with a single INSERT ... ON CONFLICT (username) DO NOTHING; the id comes from the column
+     * default and the version from the trigger.
+     * @return the inserted row, or empty when the username is already taken
+     */
+    Optional<Student> insertIfAbsent(Student student);
+
+    /**
+     * Changes the non-null fields of one student with a single UPDATE, which also returns the previous values.
+     * @param expectedVersion when not null, the row is only updated if its version still matches
+     * @return empty when no row has this id or its version differs
+     */
+    Optional<Patched> patch(Long id, String username, Level level, Long expectedVersion);
+
+    /**
+     * Streams every student in id order through a forward-only cursor. Rows are mapped straight
+     * from the result set, they are never attached to a persistence context.
+     */
+    void streamAll(Consumer<Student> consumer);
+
+    /**
+     * Loads the students into a temporary staging table with PostgreSQL COPY, then merges them into
+     * {@code student} with one INSERT ... ON CONFLICT (username) statement, all in a single transaction.
+     * When {@code updateLevel} is true the level of existing usernames is overwritten (last row of the file wins).
+     */
+    MergeCounts copyAndMerge(Iterator<Student> students, boolean updateLevel);
+
+    /**
+     * Keyset page: rows matching the optional level and username filters that come strictly after {@code after}
+     * in (sort, id) order. {@code sort} must be "id" or "username" (both non-null, so the row comparison is total).
+     */
+    List<StudentView> findPageAfter(Level level, String usernameContains, String sort, boolean descending,
+                                    KeysetCursor after, int limit);
+
+    /**
+     * Students with one of the given ids, read with one {@code id = ANY(?)} query per chunk of
+     * application.lookup.chunk-size keys. Ids that match nothing are simply absent from the result.
+     */
+    List<StudentView> lookupByIds(Collection<Long> ids);
+
+    // Correspondance exacte, comme findByUsername
+    List<StudentView> lookupByUsernames(Collection<String> usernames);
+
+    /**
+     * Persists new students in one transaction. Ids come by blocks from the sequence, so the INSERTs are sent as
+     * JDBC batches of hibernate.jdbc.batch_size rows, with a flush and clear after each batch.
+     */
+    List<Student> insertAll(List<Student> students);
+
+    /**
+     * Copies the non-null username and level of each change onto the student with the same id, in one transaction:
+     * one SELECT per batch of ids, then batched UPDATEs. Each result carries the row as that SELECT read it.
+     * Ids that no longer exist are left out of the result.
+     */
+    List<Patched> updateAll(List<Student> changes);
+
+    /**
+     * Deletes the given ids with one {@code DELETE ... WHERE id = ANY(?) RETURNING} per chunk.
+     * @return the rows actually deleted
+     */
+    List<StudentView> removeAllById(Collection<Long> ids);
+
+    /**
+     * Deletes every student of a level, one chunk per transaction so row locks are held briefly, until a chunk
+     * deletes nothing.
+     * @return the number of rows deleted
+     */
+    long removeByLevel(Level level);
+
+    /**
+     * Deletes the students created by an asynchronous import job, one chunk per transaction.
+     * @return the number of rows deleted
+     */
+    long removeByImportJob(String importJob);
+
+    /**
+     * Runs {@code spec} as a single SELECT projected on {@link StudentView}. With {@code count} the result is a
+     * {@link org.springframework.data.domain.Page} (one extra COUNT query when the page is full), otherwise a Slice
+     * read with one row more than the page size.
+     */
+    Slice<StudentView> findViews(Specification<Student> spec, Pageable pageable, boolean count);
+
+    /**
+     * Oldest transaction id still running. Every change made by a transaction below this value is committed,
+     * so it can be used as the upper bound of a delta export and as the cursor for the next one.
+     */
+    long changeHorizon();
+
+    /**
+     * Reads the table-level change counter, bumped by every statement that writes rows of student or
+     * student_tombstone, and the time of the commit that last bumped it.
+     */
+    ChangeCounter changeCounter();
+
+    /**
+     * Streams the students written and the tombstones recorded by transactions in [since, until),
+     * in transaction order with deletions first within a transaction.
+     */
+    void streamChanges(long since, long until, Consumer<ChangeRow> consumer);
+}
@@ -0,0 +1,447 @@
+package relead.relead_schoolmanagement.repositories;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.annotation.Transactional;
+import relead.relead_schoolmanagement.dto.StudentView;
+import relead.relead_schoolmanagement.entities.Level;
+import relead.relead_schoolmanagement.entities.Student;
+import relead.relead_schoolmanagement.util.KeysetCursor;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+@RequiredArgsConstructor
+public class StudentRepositoryCustomImpl implements StudentRepositoryCustom {
+
+    // Un seul INSERT par chunk : les tableaux sont dépliés côté PostgreSQL
+    private static final String INSERT_IGNORING_DUPLICATES_SQL =
+            "INSERT INTO student (username, level, import_job) " +
+            "SELECT u, l, j FROM unnest(?::text[], ?::text[], ?::text[]) AS t(u, l, j) " +
+            "ON CONFLICT (username) DO NOTHING";
+
+    // Vérification et insertion en une seule instruction : pas de fenêtre entre les deux pour une création concurrente
+    private static final String INSERT_IF_ABSENT_SQL =
+            "INSERT INTO student (username, level) VALUES (?, ?) " +
+            "ON CONFLICT (username) DO NOTHING " +
+            "RETURNING id, username, level, version";
+
+    // Le sous-select verrouille la ligne et renvoie les anciennes valeurs ; la version est comparée dans le même UPDATE
+    private static final String PATCH_SQL =
+            "UPDATE student AS s SET username = coalesce(?, s.username), level = coalesce(?, s.level) " +
+            "FROM (SELECT id, username, level, version FROM student WHERE id = ? FOR UPDATE) AS old " +
+            "WHERE s.id = old.id AND (?::bigint IS NULL OR s.version = ?::bigint) " +
+            "RETURNING old.username AS old_username, old.level AS old_level, old.version AS old_version, " +
+            "s.id, s.username, s.level, s.version";
+
+    private static final String CREATE_STAGING_SQL =
+            "CREATE TEMP TABLE student_staging (seq bigserial, username text, level text) ON COMMIT DROP";
+
+    private static final String COPY_STAGING_SQL =
+            "COPY student_staging (username, level) FROM STDIN WITH (FORMAT csv)";
+
+    // DISTINCT ON garde la dernière ligne du fichier pour un même username
+    private static final String MERGE_SQL =
+            "WITH merged AS (" +
+            "  INSERT INTO student AS s (username, level) " +
+            "  SELECT DISTINCT ON (username) username, level FROM student_staging ORDER BY username, seq DESC " +
+            "  ON CONFLICT (username) %s " +
+            "  RETURNING (s.xmax = 0) AS inserted" +
+            ") SELECT count(*) FILTER (WHERE inserted), count(*) FILTER (WHERE NOT inserted) FROM merged";
+
+    // xmax = 0 distingue une ligne insérée d'une ligne mise à jour par ON CONFLICT DO UPDATE
+    private static final String MERGE_UPDATE_LEVEL =
+            "DO UPDATE SET level = EXCLUDED.level WHERE s.level IS DISTINCT FROM EXCLUDED.level";
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private static final String STREAM_ALL_SQL = "SELECT id, username, level FROM student ORDER BY id";
+
+    private static final String PAGE_SELECT_SQL = "SELECT id, username, level, version FROM student WHERE true";
+
+    // = ANY(?) : un seul paramètre tableau, donc le même plan (index unique) quel que soit le nombre de clés
+    private static final String LOOKUP_BY_IDS_SQL = "SELECT id, username, level, version FROM student WHERE id = ANY(?)";
+    private static final String LOOKUP_BY_USERNAMES_SQL = "SELECT id, username, level, version FROM student WHERE username = ANY(?)";
+
+    private static final String DELETE_BY_IDS_SQL = "DELETE FROM student WHERE id = ANY(?) RETURNING id, username, level, version";
+
+    // LIMIT dans le sous-select : chaque DELETE ne verrouille qu'un chunk et se commite seul
+    private static final String DELETE_BY_LEVEL_SQL =
+            "DELETE FROM student WHERE id IN (SELECT id FROM student WHERE level = ? LIMIT ?)";
+    private static final String DELETE_BY_IMPORT_JOB_SQL =
+            "DELETE FROM student WHERE id IN (SELECT id FROM student WHERE import_job = ? LIMIT ?)";
+
+    private static final String CHANGE_HORIZON_SQL = "SELECT pg_snapshot_xmin(pg_current_snapshot())::text::bigint";
+
+    private static final String CHANGE_COUNTER_SQL =
+            "SELECT counter, changed_at, clock_timestamp() AS now FROM student_change WHERE id = 1";
+
+    // Les deux branches sont des range scans sur (change_xid, id)
+    private static final String STREAM_CHANGES_SQL =
+            "SELECT student_id AS id, username, NULL AS level, true AS deleted, change_xid FROM student_tombstone " +
+            "WHERE change_xid >= ? AND change_xid < ? " +
+            "UNION ALL " +
+            "SELECT id, username, level, false AS deleted, change_xid FROM student " +
+            "WHERE change_xid >= ? AND change_xid < ? " +
+            "ORDER BY change_xid, deleted DESC, id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+
+    @Value("${application.export.fetch-size:1000}")
+    private int exportFetchSize;
+
+    @Value("${application.lookup.chunk-size:500}")
+    private int lookupChunkSize;
+
+    @Value("${application.delete.chunk-size:5000}")
+    private int deleteChunkSize;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:500}")
+    private int jpaBatchSize;
+
+    @Override
+    @Transactional
+    public int insertIgnoringDuplicates(List<Student> students) {
+        if (students.isEmpty()) {
+            return 0;
+        }
+        String[] usernames = new String[students.size()];
+        String[] levels = new String[students.size()];
+        String[] importJobs = new String[students.size()];
+        for (int i = 0; i < students.size(); i++) {
+            Student s = students.get(i);
+            usernames[i] = s.getUsername();
+            levels[i] = s.getLevel() == null ? null : s.getLevel().name();
+            importJobs[i] = s.getImportJob();
+        }
+        return jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(INSERT_IGNORING_DUPLICATES_SQL);
+            ps.setArray(1, con.createArrayOf("text", usernames));
+            ps.setArray(2, con.createArrayOf("text", levels));
+            ps.setArray(3, con.createArrayOf("text", importJobs));
+            return ps;
+        });
+    }
+
+    @Override
+    public Optional<Student> insertIfAbsent(Student student) {
+        List<Student> inserted = jdbcTemplate.query(INSERT_IF_ABSENT_SQL, (rs, rowNum) -> {
+            Student s = mapStudent(rs);
+            s.setVersion(rs.getLong("version"));
+            return s;
+        }, student.getUsername(), student.getLevel() == null ? null : student.getLevel().name());
+        return inserted.stream().findFirst();
+    }
+
+    @Override
+    public Optional<Patched> patch(Long id, String username, Level level, Long expectedVersion) {
+        List<Patched> rows = jdbcTemplate.query(PATCH_SQL, (rs, rowNum) -> {
+            String oldLevel = rs.getString("old_level");
+            StudentView before = new StudentView(id, rs.getString("old_username"),
+                    oldLevel == null ? null : Level.valueOf(oldLevel), rs.getLong("old_version"));
+            Student after = mapStudent(rs);
+            after.setVersion(rs.getLong("version"));
+            return new Patched(before, after);
+        }, username, level == null ? null : level.name(), id, expectedVersion, expectedVersion);
+        return rows.stream().findFirst();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<Student> consumer) {
+        // PostgreSQL n'utilise un curseur (fetch size) que hors autocommit, d'où la transaction read-only
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(STREAM_ALL_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(exportFetchSize);
+            return ps;
+        }, (RowCallbackHandler) rs -> consumer.accept(mapStudent(rs)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<StudentView> findPageAfter(Level level, String usernameContains, String sort, boolean descending,
+                                           KeysetCursor after, int limit) {
+        StringBuilder sql = new StringBuilder(PAGE_SELECT_SQL);
+        List<Object> args = new ArrayList<>();
+        if (level != null) {
+            sql.append(" AND level = ?");
+            args.add(level.name());
+        }
+        if (usernameContains != null && !usernameContains.isEmpty()) {
+            sql.append(" AND lower(username) LIKE ?");
+            args.add(StudentRepository.containsPattern(usernameContains));
+        }
+        String comparison = descending ? "<" : ">";
+        String direction = descending ? " DESC" : "";
+        boolean byUsername = "username".equals(sort);
+        if (after != null) {
+            // comparaison de lignes : PostgreSQL en fait une borne de range scan sur l'index (username, id)
+            if (byUsername) {
+                sql.append(" AND (username, id) ").append(comparison).append(" (?, ?)");
+                args.add(after.value());
+            } else {
+                sql.append(" AND id ").append(comparison).append(" ?");
+            }
+            args.add(after.id());
+        }
+        sql.append(byUsername ? " ORDER BY username" + direction + ", id" + direction : " ORDER BY id" + direction);
+        sql.append(" LIMIT ?");
+        args.add(limit);
+        return jdbcTemplate.query(sql.toString(), (rs, rowNum) -> mapView(rs), args.toArray());
+    }
+
+    @Override
+    public List<StudentView> lookupByIds(Collection<Long> ids) {
+        return queryByKeys(LOOKUP_BY_IDS_SQL, "bigint", ids.toArray());
+    }
+
+    @Override
+    public List<StudentView> lookupByUsernames(Collection<String> usernames) {
+        return queryByKeys(LOOKUP_BY_USERNAMES_SQL, "text", usernames.toArray());
+    }
+
+    private List<StudentView> queryByKeys(String sql, String type, Object[] keys) {
+        List<StudentView> rows = new ArrayList<>(keys.length);
+        for (int from = 0; from < keys.length; from += lookupChunkSize) {
+            Object[] chunk = Arrays.copyOfRange(keys, from, Math.min(keys.length, from + lookupChunkSize));
+            rows.addAll(jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(sql);
+                ps.setArray(1, con.createArrayOf(type, chunk));
+                return ps;
+            }, (rs, rowNum) -> mapView(rs)));
+        }
+        return rows;
+    }
+
+    @Override
+    @Transactional
+    public List<Student> insertAll(List<Student> students) {
+        for (int i = 0; i < students.size(); i++) {
+            entityManager.persist(students.get(i));
+            // un flush par batch JDBC : le contexte de persistance reste petit
+            if ((i + 1) % jpaBatchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        return students;
+    }
+
+    @Override
+    @Transactional
+    public List<Patched> updateAll(List<Student> changes) {
+        List<Patched> updated = new ArrayList<>(changes.size());
+        for (int from = 0; from < changes.size(); from += jpaBatchSize) {
+            List<Student> chunk = changes.subList(from, Math.min(changes.size(), from + jpaBatchSize));
+            Map<Long, Student> current = new HashMap<>();
+            entityManager.createQuery("select s from Student s where s.id in :ids", Student.class)
+                    .setParameter("ids", chunk.stream().map(Student::getId).toList())
+                    .getResultList()
+                    .forEach(s -> current.put(s.getId(), s));
+            for (Student change : chunk) {
+                Student s = current.get(change.getId());
+                if (s == null) {
+                    continue;
+                }
+                StudentView before = StudentView.of(s);
+                if (change.getUsername() != null) {
+                    s.setUsername(change.getUsername());
+                }
+                if (change.getLevel() != null) {
+                    s.setLevel(change.getLevel());
+                }
+                updated.add(new Patched(before, s));
+            }
+            entityManager.flush();
+            entityManager.clear();
+        }
+        return updated;
+    }
+
+    @Override
+    public List<StudentView> removeAllById(Collection<Long> ids) {
+        return queryByKeys(DELETE_BY_IDS_SQL, "bigint", ids.toArray());
+    }
+
+    @Override
+    public long removeByLevel(Level level) {
+        return removeInChunks(DELETE_BY_LEVEL_SQL, level.name());
+    }
+
+    @Override
+    public long removeByImportJob(String importJob) {
+        return removeInChunks(DELETE_BY_IMPORT_JOB_SQL, importJob);
+    }
+
+    // Un chunk incomplet ne prouve pas la fin : des lignes supprimées ou verrouillées par une autre transaction
+    // le réduisent aussi. On s'arrête sur un DELETE qui ne touche plus rien
+    private long removeInChunks(String sql, String key) {
+        long removed = 0;
+        int chunk;
+        do {
+            chunk = jdbcTemplate.update(sql, key, deleteChunkSize);
+            removed += chunk;
+        } while (chunk > 0);
+        return removed;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<StudentView> findViews(Specification<Student> spec, Pageable pageable, boolean count) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<StudentView> query = cb.createQuery(StudentView.class);
+        Root<Student> root = query.from(Student.class);
+        query.select(cb.construct(StudentView.class, root.get("id"), root.get("username"), root.get("level"), root.get("version")));
+        Predicate where = spec.toPredicate(root, query, cb);
+        if (where != null) {
+            query.where(where);
+        }
+        query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+
+        int size = pageable.getPageSize();
+        List<StudentView> rows = entityManager.createQuery(query)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(count ? size : size + 1)
+                .getResultList();
+        if (count) {
+            return PageableExecutionUtils.getPage(rows, pageable, () -> count(spec));
+        }
+        // une ligne de plus que demandé indique s'il existe une page suivante
+        boolean hasNext = rows.size() > size;
+        return new SliceImpl<>(hasNext ? rows.subList(0, size) : rows, pageable, hasNext);
+    }
+
+    private long count(Specification<Student> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Student> root = query.from(Student.class);
+        query.select(cb.count(root));
+        Predicate where = spec.toPredicate(root, query, cb);
+        if (where != null) {
+            query.where(where);
+        }
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    @Override
+    public long changeHorizon() {
+        Long horizon = jdbcTemplate.queryForObject(CHANGE_HORIZON_SQL, Long.class);
+        return horizon == null ? 0 : horizon;
+    }
+
+    @Override
+    public ChangeCounter changeCounter() {
+        return jdbcTemplate.queryForObject(CHANGE_COUNTER_SQL, (rs, rowNum) -> new ChangeCounter(rs.getLong("counter"),
+                rs.getTimestamp("changed_at").getTime(), rs.getTimestamp("now").getTime()));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamChanges(long since, long until, Consumer<ChangeRow> consumer) {
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(STREAM_CHANGES_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(exportFetchSize);
+            ps.setLong(1, since);
+            ps.setLong(2, until);
+            ps.setLong(3, since);
+            ps.setLong(4, until);
+            return ps;
+        }, (RowCallbackHandler) rs -> {
+            String level = rs.getString("level");
+            consumer.accept(new ChangeRow(rs.getLong("id"), rs.getString("username"),
+                    level == null ? null : Level.valueOf(level), rs.getBoolean("deleted")));
+        });
+    }
+
+    private static Student mapStudent(ResultSet rs) throws SQLException {
+        String level = rs.getString("level");
+        return new Student(rs.getLong("id"), rs.getString("username"), level == null ? null : Level.valueOf(level));
+    }
+
+    private static StudentView mapView(ResultSet rs) throws SQLException {
+        Student s = mapStudent(rs);
+        return new StudentView(s.getId(), s.getUsername(), s.getLevel(), rs.getLong("version"));
+    }
+
+    @Override
+    @Transactional
+    public MergeCounts copyAndMerge(Iterator<Student> students, boolean updateLevel) {
+        return jdbcTemplate.execute((ConnectionCallback<MergeCounts>) con -> {
+            try (Statement st = con.createStatement()) {
+                st.execute(CREATE_STAGING_SQL);
+            }
+            long staged = copyToStaging(con.unwrap(PGConnection.class).getCopyAPI(), students);
+
+            String mergeSql = String.format(MERGE_SQL, updateLevel ? MERGE_UPDATE_LEVEL : "DO NOTHING");
+            try (Statement st = con.createStatement(); ResultSet rs = st.executeQuery(mergeSql)) {
+                rs.next();
+                return new MergeCounts(staged, rs.getLong(1), rs.getLong(2));
+            }
+        });
+    }
+
+    private static long copyToStaging(CopyManager copyManager, Iterator<Student> students) throws SQLException {
+        CopyIn copyIn = copyManager.copyIn(COPY_STAGING_SQL);
+        try {
+            StringBuilder buffer = new StringBuilder(COPY_BUFFER_SIZE);
+            while (students.hasNext()) {
+                Student s = students.next();
+                appendCsvField(buffer, s.getUsername()).append(',');
+                if (s.getLevel() != null) {
+                    buffer.append(s.getLevel().name());
+                }
+                buffer.append('\n');
+                if (buffer.length() >= COPY_BUFFER_SIZE) {
+                    writeToCopy(copyIn, buffer);
+                }
+            }
+            writeToCopy(copyIn, buffer);
+            return copyIn.endCopy();
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+    }
+
+    private static StringBuilder appendCsvField(StringBuilder buffer, String value) {
+        return buffer.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+
+    private static void writeToCopy(CopyIn copyIn, StringBuilder buffer) throws SQLException {
+        byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+        copyIn.writeToCopy(bytes, 0, bytes.length);
+        buffer.setLength(0);
+    }
+}
@@ -0,0 +1,48 @@
+package relead.relead_schoolmanagement.repositories;
+
+import org.springframework.data.jpa.domain.Specification;
+import relead.relead_schoolmanagement.dto.StudentFilter;
+import relead.relead_schoolmanagement.entities.Level;
+import relead.relead_schoolmanagement.entities.Student;
+
+import java.util.Collection;
+
+/**
+ * Building blocks of {@code GET /api/students/query}. A filter left empty yields no predicate, so only the
+ * criteria actually given end up in the WHERE clause.
+ */
+public final class StudentSpecifications {
+
+    private StudentSpecifications() {
+    }
+
+    public static Specification<Student> matching(StudentFilter filter) {
+        return Specification.allOf(
+                levelIn(filter.levels()),
+                usernameContains(filter.username()),
+                idBetween(filter.minId(), filter.maxId()));
+    }
+
+    public static Specification<Student> levelIn(Collection<Level> levels) {
+        return (root, query, cb) -> levels == null || levels.isEmpty() ? null : root.get("level").in(levels);
+    }
+
+    // Même forme que la recherche native : lower(username) LIKE passe par l'index trigram
+    public static Specification<Student> usernameContains(String term) {
+        return (root, query, cb) -> term == null || term.isBlank()
+                ? null
+                : cb.like(cb.lower(root.get("username")), StudentRepository.containsPattern(term), '\\');
+    }
+
+    public static Specification<Student> idBetween(Long minId, Long maxId) {
+        return (root, query, cb) -> {
+            if (minId != null && maxId != null) {
+                return cb.between(root.get("id"), minId, maxId);
+            }
+            if (minId != null) {
+                return cb.greaterThanOrEqualTo(root.get("id"), minId);
+            }
+            return maxId == null ? null : cb.lessThanOrEqualTo(root.get("id"), maxId);
+        };
+    }
+}
@@ -1,22 +1,51 @@
 package relead.relead_schoolmanagement.services;
 
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.web.multipart.MultipartFile;
+import relead.relead_schoolmanagement.dto.BulkResult;
+import relead.relead_schoolmanagement.dto.CursorPage;
+import relead.relead_schoolmanagement.dto.ImportJob;
+import relead.relead_schoolmanagement.dto.ImportSummary;
+import relead.relead_schoolmanagement.dto.StudentFilter;
+import relead.relead_schoolmanagement.dto.StudentLookup;
+import relead.relead_schoolmanagement.dto.StudentView;
 import relead.relead_schoolmanagement.entities.Level;
 import relead.relead_schoolmanagement.entities.Student;
 
-import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.List;
+import java.nio.file.Path;
 
 public interface IStudentService {
-    Page<Student> getAll(int page, int size, Sort sort);
-    Page<Student> getAll(int page, int size);
-    Student getById(Long id);
+    Page<StudentView> getAll(int page, int size, Sort sort);
+    Page<StudentView> getAll(int page, int size);
+    StudentView getById(Long id);
+    StudentLookup lookup(Collection<Long> ids, Collection<String> usernames);
     Student create(Student s);
     Student update(Long id, Student updated);
+    Student patch(Long id, Student changes, Long ifMatchVersion);
     void delete(Long id);
-    Page<Student> searchByUsername(String q, int page, int size);
-    Page<Student> filterByLevel(Level level, int page, int size);
-    void saveFromCsv(MultipartFile file);
-    ByteArrayInputStream loadCsv();
+    BulkResult bulkCreate(List<Student> students);
+    BulkResult bulkUpdate(List<Student> changes);
+    BulkResult bulkDelete(List<Long> ids);
+    long deleteByLevel(Level level);
+    long deleteByImportJob(String importJob);
+    Page<StudentView> searchByUsername(String q, int page, int size);
+    Page<StudentView> searchByUsername(String q, int page, int size, boolean fuzzy);
+    Page<StudentView> filterByLevel(Level level, int page, int size);
+    Slice<StudentView> getSlice(int page, int size, Sort sort);
+    Slice<StudentView> searchSliceByUsername(String q, int page, int size, boolean fuzzy);
+    Slice<StudentView> filterSliceByLevel(Level level, int page, int size);
+    Slice<StudentView> query(StudentFilter filter, int page, int size, String sortBy, String sortDirection, boolean count);
+    CursorPage<StudentView> scroll(Level level, String query, String after, int size, String sortBy, String sortDirection);
+    ImportSummary saveFromCsv(MultipartFile file);
+    ImportSummary bulkSaveFromCsv(MultipartFile file, boolean updateLevel);
+    void importFile(Path file, ImportJob job);
+    void exportCsv(OutputStream out);
+    void exportColumnar(OutputStream out);
+    long changeCursor();
+    void exportChangesCsv(long since, long until, OutputStream out);
 }
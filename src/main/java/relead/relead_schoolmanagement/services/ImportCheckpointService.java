@@ -0,0 +1,60 @@
+package relead.relead_schoolmanagement.services;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import relead.relead_schoolmanagement.dto.ImportSummary;
+import relead.relead_schoolmanagement.entities.ImportCheckpoint;
+import relead.relead_schoolmanagement.repositories.ImportCheckpointRepository;
+
+import java.time.Instant;
+
+@Service
+@RequiredArgsConstructor
+public class ImportCheckpointService {
+
+    private final ImportCheckpointRepository repository;
+
+    /**
+     * Returns the checkpoint to resume from for this file. A file that was already imported completely
+     * starts again from the beginning.
+     */
+    public ImportCheckpoint begin(String checksum, String fileName) {
+        ImportCheckpoint checkpoint = repository.findByChecksum(checksum)
+                .orElseGet(() -> new ImportCheckpoint(checksum, fileName));
+        if (checkpoint.getStatus() == ImportCheckpoint.Status.COMPLETED) {
+            checkpoint.setStatus(ImportCheckpoint.Status.IN_PROGRESS);
+            checkpoint.setCommittedOffset(0);
+            checkpoint.setCommittedLine(0);
+            checkpoint.setInserted(0);
+            checkpoint.setSkipped(0);
+            checkpoint.setRejected(0);
+        }
+        checkpoint.setFileName(fileName);
+        checkpoint.setUpdatedAt(Instant.now());
+        return repository.save(checkpoint);
+    }
+
+    /**
+     * Records that everything before {@code offset} (up to line {@code line}) is committed. Chunks are
+     * written with ON CONFLICT DO NOTHING, so replaying the chunk after a crash between the two commits is harmless.
+     */
+    public void advance(ImportCheckpoint checkpoint, long offset, long line, ImportSummary summary) {
+        checkpoint.setCommittedOffset(offset);
+        checkpoint.setCommittedLine(line);
+        copyCounts(checkpoint, summary);
+        repository.save(checkpoint);
+    }
+
+    public void complete(ImportCheckpoint checkpoint, ImportSummary summary) {
+        checkpoint.setStatus(ImportCheckpoint.Status.COMPLETED);
+        copyCounts(checkpoint, summary);
+        repository.save(checkpoint);
+    }
+
+    private static void copyCounts(ImportCheckpoint checkpoint, ImportSummary summary) {
+        checkpoint.setInserted(summary.getInserted());
+        checkpoint.setSkipped(summary.getSkipped());
+        checkpoint.setRejected(summary.getRejected());
+        checkpoint.setUpdatedAt(Instant.now());
+    }
+}
@@ -0,0 +1,196 @@
+package relead.relead_schoolmanagement.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import relead.relead_schoolmanagement.config.ImportProperties;
+import relead.relead_schoolmanagement.dto.DeleteResult;
+import relead.relead_schoolmanagement.dto.ImportJob;
+import relead.relead_schoolmanagement.exceptions.AppExceptions;
+import relead.relead_schoolmanagement.util.CsvCodec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ImportJobService {
+
+    private final IStudentService studentService;
+    private final ThreadPoolTaskExecutor importExecutor;
+    private final ImportProperties importProperties;
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+    // checksum -> id du job en cours : le checkpoint est indexé par checksum, deux imports du même fichier le partageraient
+    private final Map<String, String> runningChecksums = new ConcurrentHashMap<>();
+
+    public ImportJob submit(MultipartFile file) {
+        String jobId = UUID.randomUUID().toString();
+        Path spooled = spoolPath(jobId);
+        String checksum = spool(file, spooled);
+
+        ImportJob job;
+        try {
+            job = new ImportJob(jobId, file.getOriginalFilename(), Files.size(spooled));
+            job.setChecksum(checksum);
+        } catch (IOException e) {
+            deleteQuietly(spooled);
+            throw new AppExceptions.CsvImportException("Fail to store CSV data: " + e.getMessage());
+        }
+
+        String running = runningChecksums.putIfAbsent(checksum, jobId);
+        if (running != null) {
+            deleteQuietly(spooled);
+            throw new AppExceptions.ResourceConflictException("The same file is already being imported by job " + running);
+        }
+        evictFinishedJobs();
+        jobs.put(jobId, job);
+        try {
+            importExecutor.execute(() -> run(job, spooled));
+        } catch (TaskRejectedException e) {
+            jobs.remove(jobId);
+            runningChecksums.remove(checksum, jobId);
+            deleteQuietly(spooled);
+            throw new AppExceptions.ServiceUnavailableException("Too many imports in progress, please retry later");
+        }
+        return job;
+    }
+
+    public ImportJob get(String jobId) {
+        ImportJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new AppExceptions.ResourceNotFoundException("Import job not found with id " + jobId);
+        }
+        return job;
+    }
+
+    public List<ImportJob> list() {
+        return jobs.values().stream()
+                .sorted(Comparator.comparing(ImportJob::getSubmittedAt).reversed())
+                .toList();
+    }
+
+    public ImportJob cancel(String jobId) {
+        ImportJob job = get(jobId);
+        if (job.isFinished()) {
+            throw new AppExceptions.ResourceConflictException("Import job already finished: " + jobId);
+        }
+        job.setCancelRequested(true);
+        return job;
+    }
+
+    // Les lignes gardent l'id du job même après son éviction de la liste : seul un job encore connu est vérifié
+    public DeleteResult deleteStudents(String jobId) {
+        ImportJob job = jobs.get(jobId);
+        if (job != null && !job.isFinished()) {
+            throw new AppExceptions.ResourceConflictException("Import job still running: " + jobId);
+        }
+        return new DeleteResult(studentService.deleteByImportJob(jobId));
+    }
+
+    void run(ImportJob job, Path spooled) {
+        try {
+            if (job.isCancelRequested()) {
+                job.setStatus(ImportJob.Status.CANCELLED);
+                return;
+            }
+            job.setStartedAt(Instant.now());
+            job.setStatus(ImportJob.Status.RUNNING);
+            studentService.importFile(spooled, job);
+            job.setStatus(ImportJob.Status.COMPLETED);
+        } catch (CancellationException e) {
+            job.setStatus(ImportJob.Status.CANCELLED);
+        } catch (Exception e) {
+            log.warn("Import job {} failed", job.getId(), e);
+            job.setFailureMessage(e.getMessage());
+            job.setStatus(ImportJob.Status.FAILED);
+        } finally {
+            job.setFinishedAt(Instant.now());
+            runningChecksums.remove(job.getChecksum(), job.getId());
+            deleteQuietly(spooled);
+        }
+    }
+
+    private Path spoolPath(String jobId) {
+        try {
+            Path dir = Files.createDirectories(Paths.get(importProperties.getSpoolDir()));
+            return dir.resolve(jobId + ".csv");
+        } catch (IOException e) {
+            throw new AppExceptions.CsvImportException("Fail to store CSV data: " + e.getMessage());
+        }
+    }
+
+    // Copie en streaming (décompressée si besoin) et calcule le SHA-256 au passage, sans relire le fichier
+    private String spool(MultipartFile file, Path target) {
+        MessageDigest digest = sha256();
+        long limit = importProperties.getMaxSpoolBytes();
+        boolean stored = false;
+        try (InputStream in = new DigestInputStream(CsvCodec.decodeDetected(file.getInputStream()), digest);
+             OutputStream out = Files.newOutputStream(target)) {
+            byte[] buffer = new byte[64 * 1024];
+            long copied = 0;
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                copied += n;
+                if (copied > limit) {
+                    throw new AppExceptions.BadRequestException("CSV file is larger than " + limit + " bytes once decompressed");
+                }
+                out.write(buffer, 0, n);
+            }
+            stored = true;
+        } catch (IOException e) {
+            throw new AppExceptions.CsvImportException("Fail to store CSV data: " + e.getMessage());
+        } finally {
+            if (!stored) {
+                deleteQuietly(target);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Garde un historique borné des jobs terminés pour que la map ne grossisse pas indéfiniment
+    private void evictFinishedJobs() {
+        List<ImportJob> finished = jobs.values().stream()
+                .filter(ImportJob::isFinished)
+                .sorted(Comparator.comparing(ImportJob::getFinishedAt, Comparator.nullsLast(Comparator.naturalOrder())))
+                .toList();
+        int excess = finished.size() - importProperties.getRetainedJobs() + 1;
+        for (int i = 0; i < excess; i++) {
+            jobs.remove(finished.get(i).getId());
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete spooled import file {}", path, e);
+        }
+    }
+}
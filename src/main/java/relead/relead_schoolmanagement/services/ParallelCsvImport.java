@@ -0,0 +1,215 @@
+package relead.relead_schoolmanagement.services;
+
+import relead.relead_schoolmanagement.dto.ImportJob;
+import relead.relead_schoolmanagement.dto.ImportSummary;
+import relead.relead_schoolmanagement.entities.ImportCheckpoint;
+import relead.relead_schoolmanagement.entities.Student;
+import relead.relead_schoolmanagement.exceptions.AppExceptions;
+import relead.relead_schoolmanagement.util.StudentCsvFile;
+import relead.relead_schoolmanagement.util.StudentCsvReader;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * One-shot parallel import of a spooled file: line-aligned chunks are parsed and validated on a fork-join
+ * pool and handed to the calling thread, which writes them, through bounded queues so parsing and
+ * database writes overlap.
+ * <p>
+ * Each chunk has its own small queue and the writer drains them in file order, so a parser running ahead
+ * blocks after a few batches instead of piling its rows up on the heap. Parsers claim chunks in file order
+ * too: the chunk being written is always parsed or being parsed, and the checkpoint advances at every chunk end.
+ * <p>
+ * As in the sequential import, the first occurrence of a username in the file wins. Parsers record the lowest
+ * line of each username; when a chunk is written every earlier chunk has been parsed, so that lowest line is
+ * final for its rows, and a row is written only if it sits on it.
+ */
+final class ParallelCsvImport {
+
+    // students == null marque la fin du chunk ; lines[i] est la ligne de students.get(i)
+    private record Batch(List<Student> students, long[] lines) {
+    }
+
+    private static final long POLL_MILLIS = 100;
+    // lots en attente par chunk, marque de fin comprise
+    private static final int QUEUED_BATCHES = 2;
+
+    private final StudentService studentService;
+    private final ImportCheckpointService checkpointService;
+    private final int batchSize;
+    private final int parallelism;
+
+    private final List<BlockingQueue<Batch>> queues = new ArrayList<>();
+    private final AtomicInteger nextChunk = new AtomicInteger();
+    private final Map<String, Long> firstLines = new ConcurrentHashMap<>();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final AtomicLong bytesParsed = new AtomicLong();
+    private volatile boolean aborted;
+
+    ParallelCsvImport(StudentService studentService, ImportCheckpointService checkpointService,
+                      int batchSize, int parallelism) {
+        this.studentService = studentService;
+        this.checkpointService = checkpointService;
+        this.batchSize = batchSize;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * @return false when the file cannot be split safely and must be imported sequentially
+     */
+    boolean run(FileChannel channel, ImportJob job, ImportCheckpoint checkpoint) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            boolean resume = checkpoint.isResumable();
+            StudentCsvFile file = resume
+                    ? StudentCsvFile.split(channel, parallelism * 4, pool, checkpoint.getCommittedOffset(), checkpoint.getCommittedLine())
+                    : StudentCsvFile.split(channel, parallelism * 4, pool);
+            if (file == null) {
+                return false;
+            }
+            if (resume) {
+                studentService.resumeFrom(job, checkpoint);
+            }
+            List<StudentCsvFile.Chunk> chunks = file.getChunks();
+            bytesParsed.set(chunks.isEmpty() ? channel.size() : chunks.get(0).start());
+            List<ImportSummary> locals = new ArrayList<>(chunks.size());
+            for (int i = 0; i < chunks.size(); i++) {
+                locals.add(new ImportSummary());
+                queues.add(new ArrayBlockingQueue<>(QUEUED_BATCHES));
+            }
+            for (int t = 0; t < Math.min(parallelism, chunks.size()); t++) {
+                pool.execute(() -> parse(file, chunks, locals, job.getSummary()));
+            }
+            write(chunks, locals, job, checkpoint);
+            job.setBytesRead(channel.size());
+            // les erreurs sont rapportées dans l'ordre du fichier, quel que soit l'ordre de fin des chunks
+            locals.forEach(local -> job.getSummary().addErrors(local.getErrors()));
+            return true;
+        } finally {
+            aborted = true;
+            pool.shutdownNow();
+        }
+    }
+
+    private void write(List<StudentCsvFile.Chunk> chunks, List<ImportSummary> locals, ImportJob job,
+                       ImportCheckpoint checkpoint) {
+        // compteurs des chunks commités en tête de fichier, reprise comprise
+        ImportSummary committed = new ImportSummary();
+        committed.addInserted(checkpoint.getInserted());
+        committed.addSkipped(checkpoint.getSkipped());
+        committed.addRejected(checkpoint.getRejected());
+        try {
+            for (int i = 0; i < chunks.size(); i++) {
+                ImportSummary local = locals.get(i);
+                for (Batch batch = take(queues.get(i)); batch.students() != null; batch = take(queues.get(i))) {
+                    write(batch, local, job);
+                }
+                committed.addInserted(local.getInserted());
+                committed.addSkipped(local.getSkipped());
+                committed.addRejected(local.getRejected());
+                if (i + 1 < chunks.size()) {
+                    StudentCsvFile.Chunk next = chunks.get(i + 1);
+                    checkpointService.advance(checkpoint, next.start(), next.firstLine() - 1, committed);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Import interrupted");
+        }
+    }
+
+    // Les doublons dans le fichier sont écartés ici : leur première ligne est connue (chunks précédents parsés)
+    private void write(Batch batch, ImportSummary local, ImportJob job) {
+        List<Student> firsts = new ArrayList<>(batch.students().size());
+        for (int i = 0; i < batch.students().size(); i++) {
+            Student s = batch.students().get(i);
+            if (firstLines.get(s.getUsername()) == batch.lines()[i]) {
+                firsts.add(s);
+            }
+        }
+        long duplicates = (long) batch.students().size() - firsts.size();
+        int inserted = studentService.flushChunk(firsts, job.getSummary(), job.getId());
+        local.addInserted(inserted);
+        local.addSkipped((long) firsts.size() - inserted + duplicates);
+        job.getSummary().addSkipped(duplicates);
+        job.setBytesRead(bytesParsed.get());
+        if (job.isCancelRequested()) {
+            throw new CancellationException("Import cancelled");
+        }
+    }
+
+    private Batch take(BlockingQueue<Batch> queue) throws InterruptedException {
+        while (true) {
+            Batch batch = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            Throwable error = failure.get();
+            if (error != null) {
+                throw new AppExceptions.CsvImportException("Fail to parse CSV file: " + error.getMessage());
+            }
+            if (batch != null) {
+                return batch;
+            }
+        }
+    }
+
+    // Chunks pris dans l'ordre du fichier : un parseur bloqué sur sa file attend un chunk déjà pris avant le sien
+    private void parse(StudentCsvFile file, List<StudentCsvFile.Chunk> chunks, List<ImportSummary> locals,
+                       ImportSummary summary) {
+        for (int i = nextChunk.getAndIncrement(); i < chunks.size() && !aborted && failure.get() == null;
+             i = nextChunk.getAndIncrement()) {
+            parse(file, chunks.get(i), queues.get(i), locals.get(i), summary);
+        }
+    }
+
+    private void parse(StudentCsvFile file, StudentCsvFile.Chunk chunk, BlockingQueue<Batch> queue,
+                       ImportSummary local, ImportSummary summary) {
+        List<Student> students = new ArrayList<>(batchSize);
+        long[] lines = new long[batchSize];
+        try (StudentCsvReader reader = file.open(chunk)) {
+            while (!aborted && reader.next()) {
+                Student s = studentService.toValidStudent(reader, local);
+                if (s == null) {
+                    continue;
+                }
+                lines[students.size()] = reader.lineNumber();
+                firstLines.merge(s.getUsername(), reader.lineNumber(), Math::min);
+                students.add(s);
+                if (students.size() == batchSize) {
+                    put(queue, new Batch(students, lines));
+                    students = new ArrayList<>(batchSize);
+                    lines = new long[batchSize];
+                }
+            }
+            if (!students.isEmpty()) {
+                put(queue, new Batch(students, lines));
+            }
+            summary.addRejected(local.getRejected());
+            bytesParsed.addAndGet(chunk.length());
+            put(queue, new Batch(null, null));
+        } catch (Throwable e) {
+            // une erreur non remontée laisserait l'écrivain attendre la fin du chunk indéfiniment
+            if (!aborted) {
+                failure.compareAndSet(null, e);
+            }
+        }
+    }
+
+    private void put(BlockingQueue<Batch> queue, Batch batch) throws InterruptedException {
+        while (!queue.offer(batch, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+            if (aborted) {
+                throw new CancellationException("Import aborted");
+            }
+        }
+    }
+}
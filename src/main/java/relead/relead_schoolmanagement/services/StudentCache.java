@@ -0,0 +1,92 @@
+package relead.relead_schoolmanagement.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import relead.relead_schoolmanagement.dto.StudentView;
+import relead.relead_schoolmanagement.entities.Student;
+import relead.relead_schoolmanagement.repositories.StudentRepository;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Students looked up by id or by username, cached as immutable {@link StudentView}s (Caffeine, size and TTL bounded).
+ * <p>
+ * Only existing students are cached, so a miss always goes to the database and new rows (API or import) need no
+ * invalidation. {@link StudentService} writes update or evict the entries they touch; imports that overwrite
+ * existing rows clear everything. The TTL bounds how long a change made outside the application can be missed.
+ * Hit/miss/eviction counts are published as cache.* metrics tagged cache=students.byId / students.byUsername.
+ */
+@Service
+public class StudentCache {
+
+    private final StudentRepository studentRepository;
+    private final Cache<Long, StudentView> byId;
+    private final Cache<String, StudentView> byUsername;
+
+    public StudentCache(StudentRepository studentRepository, MeterRegistry meterRegistry,
+                        @Value("${application.cache.student.maximum-size:10000}") long maximumSize,
+                        @Value("${application.cache.student.ttl:10m}") Duration ttl) {
+        this.studentRepository = studentRepository;
+        this.byId = Caffeine.newBuilder().maximumSize(maximumSize).expireAfterWrite(ttl).recordStats().build();
+        this.byUsername = Caffeine.newBuilder().maximumSize(maximumSize).expireAfterWrite(ttl).recordStats().build();
+        CaffeineCacheMetrics.monitor(meterRegistry, byId, "students.byId");
+        CaffeineCacheMetrics.monitor(meterRegistry, byUsername, "students.byUsername");
+    }
+
+    public Optional<StudentView> findById(Long id) {
+        return Optional.ofNullable(byId.get(id, key -> studentRepository.findViewById(key).orElse(null)));
+    }
+
+    public Optional<StudentView> findByUsername(String username) {
+        return Optional.ofNullable(byUsername.get(username, key -> studentRepository.findViewByUsername(key).orElse(null)));
+    }
+
+    /**
+     * Bulk variants of the lookups above: cached entries are served as is, all the others are read together
+     * (see {@link StudentRepository#lookupByIds}). Keys that match no student are absent from the map.
+     */
+    public Map<Long, StudentView> findAllById(Collection<Long> ids) {
+        return byId.getAll(ids, missing -> index(studentRepository.lookupByIds(List.copyOf(missing)), StudentView::id));
+    }
+
+    public Map<String, StudentView> findAllByUsername(Collection<String> usernames) {
+        return byUsername.getAll(usernames, missing -> index(studentRepository.lookupByUsernames(List.copyOf(missing)), StudentView::username));
+    }
+
+    private static <K> Map<K, StudentView> index(List<StudentView> views, Function<StudentView, K> key) {
+        Map<K, StudentView> map = new HashMap<>(views.size() * 2);
+        for (StudentView view : views) {
+            map.put(key.apply(view), view);
+        }
+        return map;
+    }
+
+    /**
+     * Records the state of a student just written.
+     */
+    public void put(Student student) {
+        StudentView view = StudentView.of(student);
+        byId.put(view.id(), view);
+        byUsername.put(view.username(), view);
+    }
+
+    public void evict(StudentView view) {
+        byId.invalidate(view.id());
+        byUsername.invalidate(view.username());
+    }
+
+    public void clear() {
+        byId.invalidateAll();
+        byUsername.invalidateAll();
+    }
+}
@@ -0,0 +1,39 @@
+package relead.relead_schoolmanagement.services;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import relead.relead_schoolmanagement.repositories.StudentRepository;
+import relead.relead_schoolmanagement.repositories.StudentRepositoryCustom;
+
+/**
+ * Validators behind the listing ETags and the export Last-Modified, read from the student_change counter that
+ * triggers bump on every write to the students, so API writes, imports, direct SQL and other instances are all
+ * seen, and every instance hands out the same validators.
+ * <p>
+ * Each validator costs a one-row primary key lookup instead of the listing or the export.
+ */
+@Service
+@RequiredArgsConstructor
+public class StudentChangeTracker {
+
+    private final StudentRepository studentRepository;
+
+    /**
+     * @return a strong ETag for the committed state of the table
+     */
+    public String etag() {
+        return "\"" + studentRepository.changeCounter().value() + "\"";
+    }
+
+    /**
+     * @return when the last change to the students was committed, in milliseconds. -1 when it falls in the
+     * current second (HTTP dates have no milliseconds, a later write in the same second would go unnoticed)
+     */
+    public long lastModified() {
+        StudentRepositoryCustom.ChangeCounter counter = studentRepository.changeCounter();
+        if (counter.changedAt() / 1000 >= counter.now() / 1000) {
+            return -1;
+        }
+        return counter.changedAt();
+    }
+}
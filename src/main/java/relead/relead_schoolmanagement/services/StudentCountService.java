@@ -0,0 +1,99 @@
+package relead.relead_schoolmanagement.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import relead.relead_schoolmanagement.dto.StudentCounts;
+import relead.relead_schoolmanagement.entities.Level;
+import relead.relead_schoolmanagement.repositories.StudentRepository;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Totals kept in memory and adjusted by every student write, so reading them costs nothing.
+ * <p>
+ * Writes that bypass {@link StudentService#create}/{@code update}/{@code delete} (CSV imports, direct SQL) are
+ * caught up by {@link #reconcile()}, run after each import and periodically (application.count.reconcile-interval).
+ * Reconciliation adds the difference between the GROUP BY result and the counters read just before it, so it
+ * does not undo adjustments made after the query. It is not atomic with API writes though: a write committed
+ * before the query whose adjustment lands after the counters were read is counted twice, and one adjusted
+ * before the read but committed after the query started is missed. That drift is bounded by the writes in
+ * flight during the query and lasts until the next reconcile.
+ */
+@Slf4j
+@Service
+public class StudentCountService {
+
+    private final StudentRepository studentRepository;
+    private final AtomicLong total = new AtomicLong();
+    private final Map<Level, AtomicLong> byLevel = new EnumMap<>(Level.class);
+    private volatile Instant reconciledAt;
+
+    public StudentCountService(StudentRepository studentRepository) {
+        this.studentRepository = studentRepository;
+        for (Level level : Level.values()) {
+            byLevel.put(level, new AtomicLong());
+        }
+    }
+
+    public StudentCounts getCounts() {
+        if (reconciledAt == null) {
+            reconcile();
+        }
+        Map<Level, Long> counts = new EnumMap<>(Level.class);
+        byLevel.forEach((level, count) -> counts.put(level, count.get()));
+        return new StudentCounts(total.get(), Collections.unmodifiableMap(counts), Instant.now(), reconciledAt);
+    }
+
+    public void added(Level level) {
+        adjust(level, 1);
+    }
+
+    public void removed(Level level) {
+        adjust(level, -1);
+    }
+
+    public void levelChanged(Level from, Level to) {
+        if (from != to) {
+            adjust(from, -1);
+            adjust(to, 1);
+        }
+    }
+
+    private void adjust(Level level, long delta) {
+        total.addAndGet(delta);
+        if (level != null) {
+            byLevel.get(level).addAndGet(delta);
+        }
+    }
+
+    @Scheduled(initialDelayString = "${application.count.reconcile-interval:5m}",
+            fixedDelayString = "${application.count.reconcile-interval:5m}")
+    public synchronized void reconcile() {
+        long totalBefore = total.get();
+        Map<Level, Long> before = new EnumMap<>(Level.class);
+        byLevel.forEach((level, count) -> before.put(level, count.get()));
+
+        long actualTotal = 0;
+        Map<Level, Long> actual = new EnumMap<>(Level.class);
+        for (Object[] row : studentRepository.countGroupedByLevel()) {
+            long count = (Long) row[1];
+            actualTotal += count;
+            if (row[0] != null) {
+                actual.put((Level) row[0], count);
+            }
+        }
+
+        long drift = actualTotal - totalBefore;
+        total.addAndGet(drift);
+        byLevel.forEach((level, count) -> count.addAndGet(actual.getOrDefault(level, 0L) - before.get(level)));
+        if (drift != 0 && reconciledAt != null) {
+            log.debug("Student counters corrected by {}", drift);
+        }
+        reconciledAt = Instant.now();
+    }
+}
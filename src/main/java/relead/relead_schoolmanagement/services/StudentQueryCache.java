@@ -0,0 +1,132 @@
+package relead.relead_schoolmanagement.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+import relead.relead_schoolmanagement.dto.StudentView;
+import relead.relead_schoolmanagement.entities.Level;
+import relead.relead_schoolmanagement.util.PackedUsernameIndex;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Cache of search and level-filter result pages, bounded by the number of rows held (weight = rows + 1).
+ * <p>
+ * Loading is single-flight: concurrent requests for the same missing or expired key wait for one query.
+ * Invalidation is scoped to the entries a student write can change: the filter pages of its level, the substring
+ * searches whose term occurs in its username and the fuzzy searches sharing a trigram with it (a username sharing
+ * none cannot reach the similarity threshold). A page loaded while a write was being applied is served once but
+ * not kept, since the scan that evicts entries cannot see loads still in flight.
+ */
+@Service
+public class StudentQueryCache {
+
+    public enum Kind { SEARCH, FUZZY_SEARCH, LEVEL }
+
+    /**
+     * @param term    lower-cased search term, null for level filters
+     * @param counted Page (with totals) rather than Slice
+     */
+    public record Key(Kind kind, String term, Level level, int page, int size, String sort, boolean counted) {
+
+        public static Key search(String term, boolean fuzzy, int page, int size, boolean counted) {
+            return new Key(fuzzy ? Kind.FUZZY_SEARCH : Kind.SEARCH, term, null, page, size, "similarity", counted);
+        }
+
+        public static Key level(Level level, int page, int size, boolean counted) {
+            return new Key(Kind.LEVEL, null, level, page, size, "unsorted", counted);
+        }
+    }
+
+    private final Cache<Key, Slice<StudentView>> cache;
+    private final AtomicLong writes = new AtomicLong();
+
+    public StudentQueryCache(MeterRegistry meterRegistry,
+                             @Value("${application.cache.query.max-rows:20000}") long maxRows,
+                             @Value("${application.cache.query.ttl:30s}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxRows)
+                .weigher((Key key, Slice<StudentView> page) -> page.getNumberOfElements() + 1)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "students.queries");
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T extends Slice<StudentView>> T get(Key key, Supplier<T> loader) {
+        long[] loadedAt = {-1};
+        Slice<StudentView> page = cache.get(key, k -> {
+            loadedAt[0] = writes.get();
+            return loader.get();
+        });
+        // une écriture pendant notre chargement a pu nous échapper : la page est servie mais pas gardée
+        if (loadedAt[0] >= 0 && loadedAt[0] != writes.get()) {
+            cache.asMap().remove(key, page);
+        }
+        return (T) page;
+    }
+
+    /**
+     * Evicts the pages a write may have changed. {@code before} is null for a creation, {@code after} for a deletion.
+     */
+    public void studentChanged(StudentView before, StudentView after) {
+        writes.incrementAndGet();
+        cache.asMap().keySet().removeIf(key -> affects(key, before) || affects(key, after));
+    }
+
+    // Imports : les lignes écrites ne sont pas connues individuellement
+    public void clear() {
+        writes.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    private static boolean affects(Key key, StudentView student) {
+        if (student == null) {
+            return false;
+        }
+        return switch (key.kind()) {
+            case LEVEL -> key.level() == student.level();
+            case SEARCH -> lower(student.username()).contains(key.term());
+            case FUZZY_SEARCH -> lower(student.username()).contains(key.term())
+                    || sharesTrigram(key.term(), lower(student.username()));
+        };
+    }
+
+    private static String lower(String username) {
+        return PackedUsernameIndex.lowerCase(username);
+    }
+
+    private static boolean sharesTrigram(String a, String b) {
+        Set<String> trigrams = trigrams(a);
+        for (String t : trigrams(b)) {
+            if (trigrams.contains(t)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Trigrammes à la pg_trgm : mots alphanumériques complétés par deux espaces devant et un derrière
+    private static Set<String> trigrams(String s) {
+        Set<String> trigrams = new HashSet<>();
+        for (String word : s.split("[^\\p{L}\\p{N}]+")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            String padded = "  " + word + " ";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                trigrams.add(padded.substring(i, i + 3));
+            }
+        }
+        return trigrams;
+    }
+}
@@ -1,65 +1,364 @@
 package relead.relead_schoolmanagement.services;
 
 import lombok.AllArgsConstructor;
+import org.apache.commons.csv.CSVPrinter;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
+import relead.relead_schoolmanagement.config.ImportProperties;
+import relead.relead_schoolmanagement.dto.BulkResult;
+import relead.relead_schoolmanagement.dto.CursorPage;
+import relead.relead_schoolmanagement.dto.ImportJob;
+import relead.relead_schoolmanagement.dto.ImportSummary;
+import relead.relead_schoolmanagement.dto.StudentFilter;
+import relead.relead_schoolmanagement.dto.StudentLookup;
+import relead.relead_schoolmanagement.dto.StudentView;
+import relead.relead_schoolmanagement.entities.ImportCheckpoint;
 import relead.relead_schoolmanagement.entities.Level;
 import relead.relead_schoolmanagement.entities.Student;
 import relead.relead_schoolmanagement.exceptions.AppExceptions;
 import relead.relead_schoolmanagement.repositories.StudentRepository;
+import relead.relead_schoolmanagement.repositories.StudentRepositoryCustom;
+import relead.relead_schoolmanagement.repositories.StudentSpecifications;
+import relead.relead_schoolmanagement.util.ColumnarStudentWriter;
 import relead.relead_schoolmanagement.util.Csv;
+import relead.relead_schoolmanagement.util.KeysetCursor;
+import relead.relead_schoolmanagement.util.StudentCsvFile;
+import relead.relead_schoolmanagement.util.StudentCsvReader;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.function.LongSupplier;
 
 @Service
 @AllArgsConstructor
 public class StudentService implements IStudentService {
     private final StudentRepository studentRepository;
+    private final ImportProperties importProperties;
+    private final ImportCheckpointService checkpointService;
+    private final StudentSuggestService suggestService;
+    private final StudentCountService countService;
+    private final StudentCache studentCache;
+    private final StudentQueryCache queryCache;
     private static final String STUDENT_NOT_FOUND_MSG = "Student not found with id ";
+    private static final int MAX_USERNAME_LENGTH = 255;
+    public static final int MAX_LOOKUP_KEYS = 1000;
+    public static final int MAX_BULK_ITEMS = 1000;
+    private static final List<String> KEYSET_SORTS = List.of("id", "username");
+    // colonnes couvertes par un index : (id), (username, id), (level, id), (level, username, id)
+    private static final List<String> INDEXED_SORTS = List.of("id", "username", "level");
 
     @Override
-    public Page<Student> getAll(int page, int size, Sort sort) {
-        Pageable p = PageRequest.of(page, size, sort == null ? Sort.unsorted() : sort);
-        return studentRepository.findAll(p);
+    public Page<StudentView> getAll(int page, int size, Sort sort) {
+        Pageable p = PageRequest.of(page, size, sort == null ? Sort.unsorted() : indexedSort(sort));
+        return studentRepository.findViewsBy(p);
     }
 
     @Override
-    public Page<Student> getAll(int page, int size) {
+    public Page<StudentView> getAll(int page, int size) {
         return getAll(page, size, null);
     }
 
     @Override
-    public Student getById(Long id) {
-        return studentRepository.findById(id)
+    public StudentView getById(Long id) {
+        return studentCache.findById(id)
                 .orElseThrow(() -> new RuntimeException(STUDENT_NOT_FOUND_MSG + id));
     }
 
+    @Override
+    public BulkResult bulkCreate(List<Student> students) {
+        checkBulkSize(students);
+        BulkResult.Item[] items = new BulkResult.Item[students.size()];
+        Map<String, Integer> pending = new LinkedHashMap<>();
+        for (int i = 0; i < students.size(); i++) {
+            Student s = students.get(i);
+            String error = invalidUsername(s == null ? null : s.getUsername());
+            if (error != null) {
+                items[i] = rejected(i, null, HttpStatus.BAD_REQUEST, error);
+            } else if (pending.putIfAbsent(s.getUsername(), i) != null) {
+                items[i] = rejected(i, null, HttpStatus.CONFLICT, "username already exists " + s.getUsername());
+            }
+        }
+        // une seule requête pour tous les usernames déjà pris
+        studentCache.findAllByUsername(pending.keySet()).forEach((username, existing) -> {
+            Integer i = pending.remove(username);
+            if (i != null) {
+                items[i] = rejected(i, existing.id(), HttpStatus.CONFLICT, "username already exists " + username);
+            }
+        });
+
+        List<Student> toInsert = new ArrayList<>(pending.size());
+        pending.values().forEach(i -> toInsert.add(new Student(null, students.get(i).getUsername(), students.get(i).getLevel())));
+        List<Student> saved;
+        try {
+            saved = studentRepository.insertAll(toInsert);
+        } catch (DataIntegrityViolationException e) {
+            // un username créé entre-temps fait échouer le batch : repli ligne par ligne pour isoler le conflit
+            saved = new ArrayList<>();
+            for (Student s : toInsert) {
+                Optional<Student> inserted = studentRepository.insertIfAbsent(s);
+                if (inserted.isPresent()) {
+                    saved.add(inserted.get());
+                } else {
+                    int i = pending.get(s.getUsername());
+                    items[i] = rejected(i, null, HttpStatus.CONFLICT, "username already exists " + s.getUsername());
+                }
+            }
+        }
+        for (Student s : saved) {
+            int i = pending.get(s.getUsername());
+            items[i] = new BulkResult.Item(i, s.getId(), HttpStatus.CREATED.value(), null);
+            studentCache.put(s);
+            suggestService.put(s);
+            countService.added(s.getLevel());
+        }
+        afterBulkWrite(!saved.isEmpty());
+        return BulkResult.of(Arrays.asList(items));
+    }
+
+    @Override
+    public BulkResult bulkUpdate(List<Student> changes) {
+        checkBulkSize(changes);
+        BulkResult.Item[] items = new BulkResult.Item[changes.size()];
+        Map<Long, Integer> pending = new LinkedHashMap<>();
+        for (int i = 0; i < changes.size(); i++) {
+            Student c = changes.get(i);
+            String error = c == null || c.getId() == null ? "id is required"
+                    : c.getUsername() != null ? invalidUsername(c.getUsername()) : null;
+            if (error != null) {
+                items[i] = rejected(i, null, HttpStatus.BAD_REQUEST, error);
+            } else if (pending.putIfAbsent(c.getId(), i) != null) {
+                items[i] = rejected(i, c.getId(), HttpStatus.BAD_REQUEST, "duplicate id " + c.getId());
+            }
+        }
+        Map<Long, StudentView> previous = studentCache.findAllById(pending.keySet());
+        Map<String, Long> renames = new HashMap<>();
+        for (Iterator<Map.Entry<Long, Integer>> it = pending.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Long, Integer> entry = it.next();
+            Long id = entry.getKey();
+            int i = entry.getValue();
+            String username = changes.get(i).getUsername();
+            StudentView before = previous.get(id);
+            if (before == null) {
+                items[i] = rejected(i, id, HttpStatus.NOT_FOUND, STUDENT_NOT_FOUND_MSG + id);
+                it.remove();
+            } else if (username != null && !username.equals(before.username()) && renames.putIfAbsent(username, id) != null) {
+                items[i] = rejected(i, id, HttpStatus.CONFLICT, "username already exists " + username);
+                it.remove();
+            }
+        }
+        studentCache.findAllByUsername(renames.keySet()).forEach((username, owner) -> {
+            Long id = renames.get(username);
+            if (id != null && !owner.id().equals(id)) {
+                int i = pending.remove(id);
+                items[i] = rejected(i, id, HttpStatus.CONFLICT, "username already exists " + username);
+            }
+        });
+
+        List<Student> toUpdate = new ArrayList<>(pending.size());
+        pending.forEach((id, i) -> toUpdate.add(new Student(id, changes.get(i).getUsername(), changes.get(i).getLevel())));
+        List<StudentRepositoryCustom.Patched> saved;
+        try {
+            saved = studentRepository.updateAll(toUpdate);
+        } catch (DataIntegrityViolationException | OptimisticLockingFailureException e) {
+            // même repli que bulkCreate : chaque ligne dans sa propre transaction
+            saved = new ArrayList<>();
+            for (Student c : toUpdate) {
+                int i = pending.get(c.getId());
+                try {
+                    saved.addAll(studentRepository.updateAll(List.of(c)));
+                } catch (DataIntegrityViolationException conflict) {
+                    items[i] = rejected(i, c.getId(), HttpStatus.CONFLICT, "username already exists " + c.getUsername());
+                } catch (OptimisticLockingFailureException conflict) {
+                    items[i] = rejected(i, c.getId(), HttpStatus.CONFLICT, "Student was modified concurrently");
+                }
+            }
+        }
+        // la ligne relue par la mise à jour, pas celle du cache, qui peut être périmée
+        for (StudentRepositoryCustom.Patched patched : saved) {
+            Student s = patched.after();
+            int i = pending.get(s.getId());
+            items[i] = new BulkResult.Item(i, s.getId(), HttpStatus.OK.value(), null);
+            studentCache.evict(patched.before());
+            studentCache.put(s);
+            suggestService.put(s);
+            countService.levelChanged(patched.before().level(), s.getLevel());
+        }
+        // supprimés entre la lecture et la mise à jour
+        pending.forEach((id, i) -> {
+            if (items[i] == null) {
+                items[i] = rejected(i, id, HttpStatus.NOT_FOUND, STUDENT_NOT_FOUND_MSG + id);
+            }
+        });
+        afterBulkWrite(!saved.isEmpty());
+        return BulkResult.of(Arrays.asList(items));
+    }
+
+    @Override
+    public BulkResult bulkDelete(List<Long> ids) {
+        checkBulkSize(ids);
+        BulkResult.Item[] items = new BulkResult.Item[ids.size()];
+        Map<Long, Integer> pending = new LinkedHashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            Long id = ids.get(i);
+            if (id == null) {
+                items[i] = rejected(i, null, HttpStatus.BAD_REQUEST, "id is required");
+            } else if (pending.putIfAbsent(id, i) != null) {
+                items[i] = rejected(i, id, HttpStatus.BAD_REQUEST, "duplicate id " + id);
+            }
+        }
+        List<StudentView> deleted = pending.isEmpty() ? List.of() : studentRepository.removeAllById(pending.keySet());
+        for (StudentView s : deleted) {
+            int i = pending.remove(s.id());
+            items[i] = new BulkResult.Item(i, s.id(), HttpStatus.NO_CONTENT.value(), null);
+            studentCache.evict(s);
+            suggestService.remove(s.id());
+            countService.removed(s.level());
+        }
+        pending.forEach((id, i) -> items[i] = rejected(i, id, HttpStatus.NOT_FOUND, STUDENT_NOT_FOUND_MSG + id));
+        afterBulkWrite(!deleted.isEmpty());
+        return BulkResult.of(Arrays.asList(items));
+    }
+
+    @Override
+    public long deleteByLevel(Level level) {
+        return deleteInChunks(() -> studentRepository.removeByLevel(level));
+    }
+
+    @Override
+    public long deleteByImportJob(String importJob) {
+        return deleteInChunks(() -> studentRepository.removeByImportJob(importJob));
+    }
+
+    // Comme un import : chunks commités un à un, caches et compteurs reconstruits à la fin
+    private long deleteInChunks(LongSupplier delete) {
+        try {
+            return delete.getAsLong();
+        } finally {
+            studentCache.clear();
+            queryCache.clear();
+            suggestService.requestReload();
+            countService.reconcile();
+        }
+    }
+
+    private static void checkBulkSize(List<?> items) {
+        if (items == null) {
+            throw new AppExceptions.BadRequestException("A JSON array is required");
+        }
+        if (items.size() > MAX_BULK_ITEMS) {
+            throw new AppExceptions.BadRequestException("At most " + MAX_BULK_ITEMS + " items per bulk request");
+        }
+    }
+
+    private static BulkResult.Item rejected(int index, Long id, HttpStatus status, String error) {
+        return new BulkResult.Item(index, id, status.value(), error);
+    }
+
+    // Trop de lignes pour une invalidation ciblée des pages en cache
+    private void afterBulkWrite(boolean changed) {
+        if (changed) {
+            queryCache.clear();
+        }
+    }
+
+    @Override
+    public StudentLookup lookup(Collection<Long> ids, Collection<String> usernames) {
+        Set<Long> wantedIds = distinct(ids);
+        Set<String> wantedUsernames = distinct(usernames);
+        if (wantedIds.size() + wantedUsernames.size() > MAX_LOOKUP_KEYS) {
+            throw new AppExceptions.BadRequestException("At most " + MAX_LOOKUP_KEYS + " ids and usernames per lookup");
+        }
+        Map<Long, StudentView> foundIds = studentCache.findAllById(wantedIds);
+        Map<String, StudentView> foundUsernames = studentCache.findAllByUsername(wantedUsernames);
+
+        Map<Long, StudentView> byId = new LinkedHashMap<>();
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : wantedIds) {
+            StudentView view = foundIds.get(id);
+            if (view != null) {
+                byId.put(id, view);
+            } else {
+                missingIds.add(id);
+            }
+        }
+        Map<String, StudentView> byUsername = new LinkedHashMap<>();
+        List<String> missingUsernames = new ArrayList<>();
+        for (String username : wantedUsernames) {
+            StudentView view = foundUsernames.get(username);
+            if (view != null) {
+                byUsername.put(username, view);
+            } else {
+                missingUsernames.add(username);
+            }
+        }
+        return new StudentLookup(byId, byUsername, missingIds, missingUsernames);
+    }
+
+    // Ordre de la requête conservé, doublons et null écartés
+    private static <T> Set<T> distinct(Collection<T> keys) {
+        Set<T> set = new LinkedHashSet<>();
+        if (keys != null) {
+            for (T key : keys) {
+                if (key != null) {
+                    set.add(key);
+                }
+            }
+        }
+        return set;
+    }
+
     @Override
     public Student create(Student s) {
         if(s.getUsername() == null || s.getUsername().isBlank())
             throw new IllegalArgumentException("username is required");
 
-        studentRepository.findByUsername(s.getUsername()).ifPresent(u -> {
-            throw new RuntimeException("username already exists " + s.getUsername());
-        });
-
-        return studentRepository.save(s);
+        // Un seul aller-retour ; un username déjà pris, même par une création concurrente, n'insère rien
+        Student saved = studentRepository.insertIfAbsent(s)
+                .orElseThrow(() -> new AppExceptions.ResourceConflictException("username already exists " + s.getUsername()));
+        studentCache.put(saved);
+        queryCache.studentChanged(null, StudentView.of(saved));
+        suggestService.put(saved);
+        countService.added(saved.getLevel());
+        return saved;
     }
 
     @Override
     public Student update(Long id, Student updated) {
         Student s = studentRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException(STUDENT_NOT_FOUND_MSG + id));
+                .orElseThrow(() -> new AppExceptions.ResourceNotFoundException(STUDENT_NOT_FOUND_MSG + id));
+        StudentView previous = StudentView.of(s);
 
         if(updated.getUsername() != null && !updated.getUsername().equals(s.getUsername())) {
-            studentRepository.findByUsername(updated.getUsername()).ifPresent(u -> {
-                throw new RuntimeException("username already exists " + updated.getUsername());
+            studentCache.findByUsername(updated.getUsername()).ifPresent(u -> {
+                throw new AppExceptions.ResourceConflictException("username already exists " + updated.getUsername());
             });
             s.setUsername(updated.getUsername());
         }
@@ -67,46 +366,361 @@ public class StudentService implements IStudentService {
         if(updated.getLevel() != null)
             s.setLevel(updated.getLevel());
 
-        return studentRepository.save(s);
+        Student saved;
+        try {
+            saved = studentRepository.save(s);
+        } catch (DataIntegrityViolationException e) {
+            // username pris entre la vérification et l'écriture : l'index unique tranche
+            throw new AppExceptions.ResourceConflictException("username already exists " + updated.getUsername());
+        } catch (OptimisticLockingFailureException e) {
+            throw new AppExceptions.ResourceConflictException("Student was modified concurrently");
+        }
+        studentCache.evict(previous);
+        studentCache.put(saved);
+        queryCache.studentChanged(previous, StudentView.of(saved));
+        suggestService.put(saved);
+        countService.levelChanged(previous.level(), saved.getLevel());
+        return saved;
+    }
+
+    @Override
+    public Student patch(Long id, Student changes, Long ifMatchVersion) {
+        if (changes.getUsername() == null && changes.getLevel() == null) {
+            throw new AppExceptions.BadRequestException("username or level is required");
+        }
+        if (changes.getUsername() != null) {
+            String error = invalidUsername(changes.getUsername());
+            if (error != null) {
+                throw new AppExceptions.BadRequestException(error);
+            }
+        }
+        // If-Match l'emporte sur la version du corps ; sans l'un ni l'autre, la dernière écriture gagne
+        Long expectedVersion = ifMatchVersion != null ? ifMatchVersion : changes.getVersion();
+        StudentRepositoryCustom.Patched patched;
+        try {
+            patched = studentRepository.patch(id, changes.getUsername(), changes.getLevel(), expectedVersion)
+                    .orElseThrow(() -> patchRejected(id, ifMatchVersion != null));
+        } catch (DuplicateKeyException e) {
+            throw new AppExceptions.ResourceConflictException("username already exists " + changes.getUsername());
+        }
+
+        Student saved = patched.after();
+        studentCache.evict(patched.before());
+        studentCache.put(saved);
+        queryCache.studentChanged(patched.before(), StudentView.of(saved));
+        suggestService.put(saved);
+        countService.levelChanged(patched.before().level(), saved.getLevel());
+        return saved;
+    }
+
+    // Aucune ligne modifiée : l'étudiant n'existe pas ou sa version a changé (relue seulement dans ce cas)
+    private RuntimeException patchRejected(Long id, boolean ifMatch) {
+        StudentView current = studentRepository.findViewById(id)
+                .orElseThrow(() -> new AppExceptions.ResourceNotFoundException(STUDENT_NOT_FOUND_MSG + id));
+        String message = "Student " + id + " was modified concurrently, current version is " + current.version();
+        return ifMatch ? new AppExceptions.PreconditionFailedException(message) : new AppExceptions.ResourceConflictException(message);
     }
 
     @Override
     public void delete(Long id) {
-        Student s = studentRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException(STUDENT_NOT_FOUND_MSG + id));
+        // Un seul DELETE ... RETURNING : la ligne supprimée fournit le niveau et le username pour les caches
+        StudentView s = studentRepository.removeAllById(List.of(id)).stream().findFirst()
+                .orElseThrow(() -> new AppExceptions.ResourceNotFoundException(STUDENT_NOT_FOUND_MSG + id));
+        studentCache.evict(s);
+        queryCache.studentChanged(s, null);
+        suggestService.remove(id);
+        countService.removed(s.level());
+    }
 
-        studentRepository.delete(s);
+    @Override
+    public Page<StudentView> searchByUsername(String q, int page, int size) {
+        return searchByUsername(q, page, size, false);
     }
 
     @Override
-    public Page<Student> searchByUsername(String q, int page, int size) {
+    public Page<StudentView> searchByUsername(String q, int page, int size, boolean fuzzy) {
         Pageable p = PageRequest.of(page, size);
-        return studentRepository.findByUsernameContainingIgnoreCase(q == null ? "" : q, p);
+        String query = q == null ? "" : q.toLowerCase(Locale.ROOT);
+        String pattern = StudentRepository.containsPattern(query);
+        return queryCache.get(StudentQueryCache.Key.search(query, fuzzy, page, size, true), () -> fuzzy
+                ? studentRepository.fuzzySearchByUsername(pattern, query, p)
+                : studentRepository.searchByUsername(pattern, query, p));
     }
 
     @Override
-    public Page<Student> filterByLevel(Level level, int page, int size) {
+    public Page<StudentView> filterByLevel(Level level, int page, int size) {
         Pageable p = PageRequest.of(page, size);
-        return studentRepository.findByLevel(level, p);
+        return queryCache.get(StudentQueryCache.Key.level(level, page, size, true), () -> studentRepository.findViewsByLevel(level, p));
     }
 
     @Override
-    public void saveFromCsv(MultipartFile file) {
-        try {
-            List<Student> students = Csv.csvToStudents(file.getInputStream());
-            for (Student s : students) {
-                if (studentRepository.findByUsername(s.getUsername()).isEmpty()) {
-                    studentRepository.save(s);
-                }
+    public Slice<StudentView> getSlice(int page, int size, Sort sort) {
+        Pageable p = PageRequest.of(page, size, sort == null ? Sort.unsorted() : indexedSort(sort));
+        return studentRepository.findSliceBy(p);
+    }
+
+    @Override
+    public Slice<StudentView> query(StudentFilter filter, int page, int size, String sortBy, String sortDirection, boolean count) {
+        Sort sort = Sort.by(Sort.Direction.fromString(sortDirection), sortBy == null || sortBy.isBlank() ? "id" : sortBy);
+        Pageable p = PageRequest.of(page, size, indexedSort(sort));
+        return studentRepository.findViews(StudentSpecifications.matching(filter), p, count);
+    }
+
+    // Tri limité aux colonnes indexées, id en dernier pour un ordre stable d'une page à l'autre
+    private static Sort indexedSort(Sort sort) {
+        Sort.Direction direction = Sort.Direction.ASC;
+        for (Sort.Order order : sort) {
+            if (!INDEXED_SORTS.contains(order.getProperty())) {
+                throw new AppExceptions.BadRequestException("Sorting is only allowed by " + INDEXED_SORTS);
             }
+            direction = order.getDirection();
+        }
+        return sort.getOrderFor("id") != null ? sort : sort.and(Sort.by(direction, "id"));
+    }
+
+    @Override
+    public Slice<StudentView> searchSliceByUsername(String q, int page, int size, boolean fuzzy) {
+        Pageable p = PageRequest.of(page, size);
+        String query = q == null ? "" : q.toLowerCase(Locale.ROOT);
+        String pattern = StudentRepository.containsPattern(query);
+        return queryCache.get(StudentQueryCache.Key.search(query, fuzzy, page, size, false), () -> fuzzy
+                ? studentRepository.fuzzySearchSliceByUsername(pattern, query, p)
+                : studentRepository.searchSliceByUsername(pattern, query, p));
+    }
+
+    @Override
+    public Slice<StudentView> filterSliceByLevel(Level level, int page, int size) {
+        Pageable p = PageRequest.of(page, size);
+        return queryCache.get(StudentQueryCache.Key.level(level, page, size, false), () -> studentRepository.findSliceByLevel(level, p));
+    }
+
+    @Override
+    public CursorPage<StudentView> scroll(Level level, String query, String after, int size, String sortBy, String sortDirection) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Page size must not be less than one");
+        }
+        KeysetCursor cursor = after == null || after.isBlank() ? null : KeysetCursor.decode(after);
+        // le tri voyage dans le curseur : les pages suivantes ne peuvent pas en changer
+        String sort = cursor != null ? cursor.sort() : (sortBy == null || sortBy.isBlank() ? "id" : sortBy);
+        if (!KEYSET_SORTS.contains(sort)) {
+            throw new AppExceptions.BadRequestException("Keyset pagination can only sort by " + KEYSET_SORTS);
+        }
+        boolean descending = cursor != null ? cursor.descending() : "DESC".equalsIgnoreCase(sortDirection);
+
+        // une ligne de plus que demandé indique s'il existe une page suivante
+        List<StudentView> rows = studentRepository.findPageAfter(level, query, sort, descending, cursor, size + 1);
+        String next = null;
+        if (rows.size() > size) {
+            rows = rows.subList(0, size);
+            StudentView last = rows.get(size - 1);
+            next = new KeysetCursor(sort, descending, last.id(), "username".equals(sort) ? last.username() : null).encode();
+        }
+        return new CursorPage<>(rows, size, next);
+    }
+
+    @Override
+    public ImportSummary saveFromCsv(MultipartFile file) {
+        ImportSummary summary = new ImportSummary();
+        try (InputStream is = file.getInputStream();
+             StudentCsvReader reader = Csv.openStudents(is)) {
+            importRows(reader, summary, null, () -> { });
+            return summary;
         } catch (IOException e) {
             throw new AppExceptions.CsvImportException("Fail to store CSV data: " + e.getMessage());
+        } finally {
+            queryCache.clear();
+            suggestService.requestReload();
+            countService.reconcile();
         }
     }
 
     @Override
-    public ByteArrayInputStream loadCsv() {
-        List<Student> students = studentRepository.findAll();
-        return Csv.studentsToCSV(students);
+    public void importFile(Path file, ImportJob job) {
+        ImportCheckpoint checkpoint = checkpointService.begin(job.getChecksum(), job.getFileName());
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            int parallelism = importProperties.getParseParallelism();
+            if (parallelism > 1 && size >= importProperties.getParallelThresholdBytes()
+                    && new ParallelCsvImport(this, checkpointService, batchSize(), parallelism).run(channel, job, checkpoint)) {
+                checkpointService.complete(checkpoint, job.getSummary());
+                return;
+            }
+            StudentCsvReader resumed = checkpoint.isResumable()
+                    ? StudentCsvFile.resume(channel, checkpoint.getCommittedOffset(), checkpoint.getCommittedLine())
+                    : null;
+            if (resumed != null) {
+                resumeFrom(job, checkpoint);
+            }
+            try (StudentCsvReader reader = resumed != null ? resumed : Csv.openStudents(channel)) {
+                importRows(reader, job.getSummary(), job.getId(), () -> {
+                    long offset = reader.offset();
+                    if (offset >= 0) {
+                        checkpointService.advance(checkpoint, offset, reader.lineNumber(), job.getSummary());
+                        job.setBytesRead(offset);
+                    }
+                    // l'annulation n'est prise en compte qu'entre deux chunks déjà commités
+                    if (job.isCancelRequested()) {
+                        throw new CancellationException("Import cancelled");
+                    }
+                });
+            }
+            job.setBytesRead(size);
+            checkpointService.complete(checkpoint, job.getSummary());
+        } catch (IOException | UncheckedIOException e) {
+            throw new AppExceptions.CsvImportException("Fail to store CSV data: " + e.getMessage());
+        } finally {
+            // les lignes importées (même partiellement) sont écrites en SQL, hors de l'index de suggestions
+            queryCache.clear();
+            suggestService.requestReload();
+            countService.reconcile();
+        }
+    }
+
+    // Reprend les compteurs du checkpoint : les lignes déjà commitées ne sont ni relues ni revalidées
+    void resumeFrom(ImportJob job, ImportCheckpoint checkpoint) {
+        ImportSummary summary = job.getSummary();
+        summary.addInserted(checkpoint.getInserted());
+        summary.addSkipped(checkpoint.getSkipped());
+        summary.addRejected(checkpoint.getRejected());
+        job.setResumedFromLine(checkpoint.getCommittedLine());
+        job.setResumedFromOffset(checkpoint.getCommittedOffset());
+        job.setBytesRead(checkpoint.getCommittedOffset());
+    }
+
+    private void importRows(StudentCsvReader reader, ImportSummary summary, String importJob, Runnable afterFlush) {
+        int batchSize = batchSize();
+        List<Student> chunk = new ArrayList<>(batchSize);
+        while (reader.next()) {
+            Student s = toValidStudent(reader, summary);
+            if (s == null) {
+                continue;
+            }
+            chunk.add(s);
+            if (chunk.size() == batchSize) {
+                flushChunk(chunk, summary, importJob);
+                afterFlush.run();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            flushChunk(chunk, summary, importJob);
+            afterFlush.run();
+        }
+    }
+
+    int batchSize() {
+        return Math.max(1, importProperties.getBatchSize());
+    }
+
+    @Override
+    public ImportSummary bulkSaveFromCsv(MultipartFile file, boolean updateLevel) {
+        ImportSummary summary = new ImportSummary();
+        try (InputStream is = file.getInputStream();
+             StudentCsvReader reader = Csv.openStudents(is)) {
+            StudentRepositoryCustom.MergeCounts counts = studentRepository.copyAndMerge(validStudents(reader, summary), updateLevel);
+            summary.addInserted(counts.inserted());
+            summary.addUpdated(counts.updated());
+            summary.addSkipped(counts.staged() - counts.inserted() - counts.updated());
+            return summary;
+        } catch (IOException e) {
+            throw new AppExceptions.CsvImportException("Fail to store CSV data: " + e.getMessage());
+        } finally {
+            // les autres imports n'ajoutent que des lignes, absentes du cache
+            if (updateLevel) {
+                studentCache.clear();
+            }
+            queryCache.clear();
+            suggestService.requestReload();
+            countService.reconcile();
+        }
+    }
+
+    // Les lignes invalides sont comptées comme rejetées au fil de l'itération
+    private Iterator<Student> validStudents(StudentCsvReader reader, ImportSummary summary) {
+        return new Iterator<>() {
+            private Student next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && reader.next()) {
+                    next = toValidStudent(reader, summary);
+                }
+                return next != null;
+            }
+
+            @Override
+            public Student next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Student s = next;
+                next = null;
+                return s;
+            }
+        };
+    }
+
+    Student toValidStudent(StudentCsvReader reader, ImportSummary summary) {
+        String username = reader.username();
+        String error = invalidUsername(username);
+        if (error != null) {
+            summary.reject(reader.lineNumber(), error);
+            return null;
+        }
+        return new Student(null, username, reader.level());
+    }
+
+    // null si le username est acceptable, sinon la raison du rejet
+    private static String invalidUsername(String username) {
+        if (username == null || username.isBlank()) {
+            return "username is required";
+        }
+        if (username.length() > MAX_USERNAME_LENGTH) {
+            return "username is longer than " + MAX_USERNAME_LENGTH + " characters";
+        }
+        return null;
+    }
+
+    int flushChunk(List<Student> chunk, ImportSummary summary, String importJob) {
+        if (chunk.isEmpty()) {
+            return 0;
+        }
+        chunk.forEach(s -> s.setImportJob(importJob));
+        int inserted = studentRepository.insertIgnoringDuplicates(chunk);
+        summary.addInserted(inserted);
+        summary.addSkipped((long) chunk.size() - inserted);
+        chunk.clear();
+        return inserted;
+    }
+
+    @Override
+    public void exportCsv(OutputStream out) {
+        try (CSVPrinter csvPrinter = Csv.openPrinter(out)) {
+            studentRepository.streamAll(student -> Csv.printStudent(csvPrinter, student));
+        } catch (IOException | UncheckedIOException e) {
+            throw new AppExceptions.CsvImportException("Fail to export data to CSV file: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void exportColumnar(OutputStream out) {
+        try (ColumnarStudentWriter writer = new ColumnarStudentWriter(out, ColumnarStudentWriter.DEFAULT_ROW_GROUP_SIZE)) {
+            studentRepository.streamAll(writer::write);
+        } catch (IOException | UncheckedIOException e) {
+            throw new AppExceptions.CsvImportException("Fail to export data: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public long changeCursor() {
+        return studentRepository.changeHorizon();
+    }
+
+    @Override
+    public void exportChangesCsv(long since, long until, OutputStream out) {
+        try (CSVPrinter csvPrinter = Csv.openChangePrinter(out)) {
+            studentRepository.streamChanges(since, until, change -> Csv.printChange(csvPrinter, change));
+        } catch (IOException | UncheckedIOException e) {
+            throw new AppExceptions.CsvImportException("Fail to export data to CSV file: " + e.getMessage());
+        }
     }
 }
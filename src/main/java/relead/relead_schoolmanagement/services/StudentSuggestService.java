@@ -0,0 +1,260 @@
+package relead.relead_schoolmanagement.services;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import relead.relead_schoolmanagement.dto.StudentView;
+import relead.relead_schoolmanagement.entities.Level;
+import relead.relead_schoolmanagement.entities.Student;
+import relead.relead_schoolmanagement.repositories.StudentRepository;
+import relead.relead_schoolmanagement.util.PackedUsernameIndex;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Username autocomplete answered from memory, without touching the database.
+ * <p>
+ * Usernames live in a {@link PackedUsernameIndex} loaded at start-up. Creates, updates and deletes go to a small
+ * sorted overlay (added entries, ids masked in the packed index) which is merged into a new packed index once it
+ * grows past a fraction of it. Bulk imports write through SQL and only trigger a background reload.
+ * Lookups are lock-free; writers are serialized.
+ */
+@Slf4j
+@Service
+public class StudentSuggestService {
+
+    public static final int MAX_LIMIT = 50;
+    private static final int MIN_OVERLAY = 1024;
+
+    private final StudentRepository studentRepository;
+    private final ExecutorService reloader = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "suggest-reload");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicBoolean reloadPending = new AtomicBoolean();
+    private volatile State state = new State(PackedUsernameIndex.EMPTY);
+    // opérations reçues pendant un rechargement, rejouées sur le nouvel index
+    private List<Consumer<State>> journal;
+
+    public StudentSuggestService(StudentRepository studentRepository, MeterRegistry meterRegistry) {
+        this.studentRepository = studentRepository;
+        Gauge.builder("students.suggest.entries", this, s -> s.state.size())
+                .description("Usernames held by the autocomplete index")
+                .register(meterRegistry);
+        Gauge.builder("students.suggest.memory", this, s -> s.state.memoryBytes())
+                .description("Estimated heap used by the autocomplete index")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("students.suggest.memory.per.username", this, s -> s.state.memoryPerEntry())
+                .description("Estimated heap used per username by the autocomplete index")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param prefix matched case-insensitively
+     * @param level  optional filter
+     */
+    public List<StudentView> suggest(String prefix, Level level, int limit) {
+        State current = state;
+        String p = PackedUsernameIndex.lowerCase(prefix == null ? "" : prefix);
+        int max = Math.min(Math.max(limit, 0), MAX_LIMIT);
+        List<StudentView> result = new ArrayList<>(max);
+
+        PackedUsernameIndex base = current.base;
+        int i = base.lowerBound(p);
+        Iterator<Student> overlay = current.added.tailSet(new Student(Long.MIN_VALUE, p, null), true).iterator();
+        Student nextAdded = nextMatch(overlay, p, level);
+        while (result.size() < max) {
+            while (i < base.size() && base.startsWith(i, p)
+                    && (current.removed.contains(base.id(i)) || (level != null && level != base.level(i)))) {
+                i++;
+            }
+            boolean baseMatch = i < base.size() && base.startsWith(i, p);
+            if (!baseMatch && nextAdded == null) {
+                break;
+            }
+            if (baseMatch && (nextAdded == null || base.compareTo(i, nextAdded) < 0)) {
+                result.add(new StudentView(base.id(i), base.username(i), base.level(i), null));
+                i++;
+            } else {
+                result.add(StudentView.of(nextAdded));
+                nextAdded = nextMatch(overlay, p, level);
+            }
+        }
+        return result;
+    }
+
+    private static Student nextMatch(Iterator<Student> overlay, String prefix, Level level) {
+        while (overlay.hasNext()) {
+            Student s = overlay.next();
+            if (!PackedUsernameIndex.lowerCase(s.getUsername()).startsWith(prefix)) {
+                return null;
+            }
+            if (level == null || level == s.getLevel()) {
+                return s;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Records a created or updated student.
+     */
+    public synchronized void put(Student student) {
+        Student entry = new Student(student.getId(), student.getUsername(), student.getLevel());
+        apply(s -> s.put(entry));
+    }
+
+    public synchronized void remove(Long id) {
+        apply(s -> s.remove(id));
+    }
+
+    private void apply(Consumer<State> op) {
+        op.accept(state);
+        if (journal != null) {
+            journal.add(op);
+        }
+        if (state.overlaySize() > Math.max(MIN_OVERLAY, state.base.size() / 32)) {
+            state = new State(state.merged());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        reload();
+    }
+
+    /**
+     * Schedules a reload from the database; requests made while one is queued are coalesced.
+     */
+    public void requestReload() {
+        if (reloadPending.compareAndSet(false, true)) {
+            reloader.execute(() -> {
+                reloadPending.set(false);
+                try {
+                    reload();
+                } catch (RuntimeException e) {
+                    log.warn("Could not reload the username suggest index", e);
+                }
+            });
+        }
+    }
+
+    public void reload() {
+        synchronized (this) {
+            journal = new ArrayList<>();
+        }
+        List<Consumer<State>> pending;
+        PackedUsernameIndex base;
+        try {
+            List<Student> students = new ArrayList<>();
+            studentRepository.streamAll(students::add);
+            base = PackedUsernameIndex.sorted(students.toArray(new Student[0]));
+        } finally {
+            synchronized (this) {
+                pending = journal;
+                journal = null;
+            }
+        }
+        synchronized (this) {
+            State reloaded = new State(base);
+            pending.forEach(op -> op.accept(reloaded));
+            state = reloaded;
+        }
+        log.info("Username suggest index loaded: {} entries, {} bytes", base.size(), base.memoryBytes());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        reloader.shutdownNow();
+    }
+
+    private static final class State {
+        private final PackedUsernameIndex base;
+        private final ConcurrentSkipListSet<Student> added = new ConcurrentSkipListSet<>(PackedUsernameIndex.ORDER);
+        private final Set<Long> removed = ConcurrentHashMap.newKeySet();
+        // accédée uniquement par les écrivains (sous verrou)
+        private final Map<Long, Student> addedById = new HashMap<>();
+
+        private State(PackedUsernameIndex base) {
+            this.base = base;
+        }
+
+        private void put(Student entry) {
+            remove(entry.getId());
+            addedById.put(entry.getId(), entry);
+            added.add(entry);
+        }
+
+        private void remove(Long id) {
+            Student previous = addedById.remove(id);
+            if (previous != null) {
+                added.remove(previous);
+            }
+            // un id plus grand que tous ceux de l'index (création) ne peut pas y figurer
+            if (id <= base.maxId()) {
+                removed.add(id);
+            }
+        }
+
+        private int overlaySize() {
+            return addedById.size() + removed.size();
+        }
+
+        private PackedUsernameIndex merged() {
+            List<Student> entries = new ArrayList<>(base.size() + added.size());
+            Iterator<Student> overlay = added.iterator();
+            Student next = overlay.hasNext() ? overlay.next() : null;
+            for (int i = 0; i < base.size(); i++) {
+                if (removed.contains(base.id(i))) {
+                    continue;
+                }
+                while (next != null && base.compareTo(i, next) > 0) {
+                    entries.add(next);
+                    next = overlay.hasNext() ? overlay.next() : null;
+                }
+                entries.add(base.student(i));
+            }
+            while (next != null) {
+                entries.add(next);
+                next = overlay.hasNext() ? overlay.next() : null;
+            }
+            return PackedUsernameIndex.of(entries);
+        }
+
+        private int size() {
+            return base.size() - removed.size() + added.size();
+        }
+
+        // les entrées de l'overlay sont estimées (objet Student + String + nœud de skip list)
+        private long memoryBytes() {
+            long overlay = 0;
+            for (Student s : added) {
+                overlay += 120 + 2L * s.getUsername().length();
+            }
+            return base.memoryBytes() + overlay + 64L * removed.size();
+        }
+
+        private double memoryPerEntry() {
+            int size = size();
+            return size <= 0 ? 0 : (double) memoryBytes() / size;
+        }
+    }
+}
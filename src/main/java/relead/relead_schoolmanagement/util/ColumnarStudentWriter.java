@@ -0,0 +1,157 @@
+package relead.relead_schoolmanagement.util;
+
+import relead.relead_schoolmanagement.entities.Level;
+import relead.relead_schoolmanagement.entities.Student;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes students in a small columnar binary layout meant to be memory-mapped by analytics jobs.
+ * All integers are little-endian and every section starts on an 8-byte boundary.
+ * <pre>
+ * file      := magic dictionary rowGroup* end
+ * magic     := "RLDSTU01"                                   (8 bytes)
+ * dictionary:= int32 count, count × (int32 length, UTF-8 name), padding
+ *              level codes are indexes into this dictionary, 255 means no level
+ * rowGroup  := int32 rows (&gt; 0), int32 usernameBytes,
+ *              ids       rows × int64
+ *              levels    rows × uint8, padding
+ *              offsets   (rows + 1) × int32, start of each username in the data section, padding
+ *              usernames usernameBytes × UTF-8, padding
+ * end       := int32 0, int32 0, int64 total rows
+ * </pre>
+ */
+public final class ColumnarStudentWriter implements Closeable {
+
+    public static final String MEDIA_TYPE = "application/vnd.relead.students-columnar";
+    public static final int DEFAULT_ROW_GROUP_SIZE = 64 * 1024;
+
+    static final byte[] MAGIC = "RLDSTU01".getBytes(StandardCharsets.US_ASCII);
+    static final int NO_LEVEL = 255;
+
+    private static final Level[] LEVELS = Level.values();
+
+    private final OutputStream out;
+    private final int rowGroupSize;
+    private final long[] ids;
+    private final byte[] levels;
+    private final int[] offsets;
+    private final ByteArrayOutputStream usernames = new ByteArrayOutputStream();
+    private ByteBuffer scratch = ByteBuffer.allocate(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+    private long written;
+    private int rows;
+    private long totalRows;
+
+    public ColumnarStudentWriter(OutputStream out, int rowGroupSize) throws IOException {
+        this.out = new BufferedOutputStream(out, 64 * 1024);
+        this.rowGroupSize = rowGroupSize;
+        this.ids = new long[rowGroupSize];
+        this.levels = new byte[rowGroupSize];
+        this.offsets = new int[rowGroupSize + 1];
+        writeHeader();
+    }
+
+    public void write(Student student) {
+        ids[rows] = student.getId() == null ? 0 : student.getId();
+        levels[rows] = (byte) (student.getLevel() == null ? NO_LEVEL : student.getLevel().ordinal());
+        byte[] name = student.getUsername().getBytes(StandardCharsets.UTF_8);
+        usernames.write(name, 0, name.length);
+        offsets[++rows] = usernames.size();
+        if (rows == rowGroupSize) {
+            try {
+                flushRowGroup();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        flushRowGroup();
+        ByteBuffer end = buffer(16);
+        end.putInt(0).putInt(0).putLong(totalRows);
+        emit(end);
+        out.close();
+    }
+
+    private void writeHeader() throws IOException {
+        out.write(MAGIC);
+        written += MAGIC.length;
+        byte[][] names = new byte[LEVELS.length][];
+        int size = 4;
+        for (int i = 0; i < LEVELS.length; i++) {
+            names[i] = LEVELS[i].name().getBytes(StandardCharsets.UTF_8);
+            size += 4 + names[i].length;
+        }
+        ByteBuffer dictionary = buffer(size);
+        dictionary.putInt(LEVELS.length);
+        for (byte[] name : names) {
+            dictionary.putInt(name.length).put(name);
+        }
+        emit(dictionary);
+        pad();
+    }
+
+    private void flushRowGroup() throws IOException {
+        if (rows == 0) {
+            return;
+        }
+        int usernameBytes = usernames.size();
+        ByteBuffer header = buffer(8);
+        header.putInt(rows).putInt(usernameBytes);
+        emit(header);
+
+        ByteBuffer idColumn = buffer(rows * 8);
+        idColumn.asLongBuffer().put(ids, 0, rows);
+        idColumn.position(rows * 8);
+        emit(idColumn);
+
+        out.write(levels, 0, rows);
+        written += rows;
+        pad();
+
+        ByteBuffer offsetColumn = buffer((rows + 1) * 4);
+        offsetColumn.asIntBuffer().put(offsets, 0, rows + 1);
+        offsetColumn.position((rows + 1) * 4);
+        emit(offsetColumn);
+        pad();
+
+        usernames.writeTo(out);
+        written += usernameBytes;
+        pad();
+
+        totalRows += rows;
+        rows = 0;
+        usernames.reset();
+    }
+
+    private ByteBuffer buffer(int capacity) {
+        if (scratch.capacity() < capacity) {
+            scratch = ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        return scratch.clear();
+    }
+
+    private void emit(ByteBuffer buffer) throws IOException {
+        out.write(buffer.array(), 0, buffer.position());
+        written += buffer.position();
+    }
+
+    // Aligne la section suivante sur 8 octets pour permettre des lectures alignées après un mmap
+    private void pad() throws IOException {
+        int padding = (int) ((8 - written % 8) % 8);
+        for (int i = 0; i < padding; i++) {
+            out.write(0);
+        }
+        written += padding;
+    }
+}
@@ -0,0 +1,170 @@
+package relead.relead_schoolmanagement.util;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import relead.relead_schoolmanagement.entities.Level;
+import relead.relead_schoolmanagement.exceptions.AppExceptions;
+
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+/**
+ * General purpose reader backed by commons-csv, used for quoted or otherwise unusual files.
+ * <p>
+ * The bytes handed to commons-csv are scanned for line ends, so {@link #offset()} stays known: commons-csv
+ * counts the lines it has consumed, and CR and LF never occur inside a multi-byte UTF-8 sequence.
+ */
+final class CommonsStudentCsvReader implements StudentCsvReader {
+    private final CSVParser parser;
+    private final Iterator<CSVRecord> records;
+    private final LineEnds lineEnds;
+    private final long lineOffset;
+    private CSVRecord current;
+    private long currentLine;
+
+    private CommonsStudentCsvReader(CSVParser parser, LineEnds lineEnds, long lineOffset) {
+        this.parser = parser;
+        this.records = parser.iterator();
+        this.lineEnds = lineEnds;
+        this.lineOffset = lineOffset;
+    }
+
+    static CommonsStudentCsvReader withHeaderRecord(InputStream is) throws IOException {
+        return withHeaderRecord(is, 0);
+    }
+
+    // Le header est lu depuis la première ligne du flux, qui commence à l'offset start du fichier
+    static CommonsStudentCsvReader withHeaderRecord(InputStream is, long start) throws IOException {
+        CSVFormat format = CSVFormat.DEFAULT.builder()
+                .setHeader().setSkipHeaderRecord(true).setIgnoreHeaderCase(true).setTrim(true).build();
+        LineEnds lineEnds = new LineEnds(is, start);
+        // le flux commence à la ligne 1 du fichier (header compris)
+        return new CommonsStudentCsvReader(new CSVParser(reader(lineEnds), format), lineEnds, 0);
+    }
+
+    // Reprise en cours de fichier : le header est déjà connu et la première ligne du flux est firstLine, à l'offset start
+    static CommonsStudentCsvReader withHeader(InputStream is, String[] header, long firstLine, long start) throws IOException {
+        CSVFormat format = CSVFormat.DEFAULT.builder()
+                .setHeader(header).setIgnoreHeaderCase(true).setTrim(true).build();
+        LineEnds lineEnds = new LineEnds(is, start);
+        return new CommonsStudentCsvReader(new CSVParser(reader(lineEnds), format), lineEnds, firstLine - 1);
+    }
+
+    private static BufferedReader reader(InputStream is) {
+        return new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public boolean next() {
+        try {
+            current = records.hasNext() ? records.next() : null;
+            // lignes physiques (vides comprises) comme le chemin rapide, pas numéro d'enregistrement
+            currentLine = parser.getCurrentLineNumber() + lineOffset;
+        } catch (UncheckedIOException e) {
+            throw new AppExceptions.CsvImportException("Fail to parse CSV file: " + e.getMessage());
+        }
+        return current != null;
+    }
+
+    // Ligne où se termine l'enregistrement : celle de l'enregistrement sauf pour un champ entre guillemets sur plusieurs lignes
+    @Override
+    public long lineNumber() {
+        return currentLine;
+    }
+
+    @Override
+    public String username() {
+        return current.isSet("Username") ? current.get("Username") : null;
+    }
+
+    @Override
+    public Level level() {
+        return Csv.parseLevel(current.isSet("Level") ? current.get("Level") : null);
+    }
+
+    @Override
+    public long offset() {
+        return lineEnds.offset(currentLine - lineOffset);
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+
+    // Offset de fin des lignes lues en avance par commons-csv, comptées comme lui : CR, LF ou CRLF
+    private static final class LineEnds extends FilterInputStream {
+        private final long start;
+        // fin des lignes dropped + 1, dropped + 2, ... relatives au début du flux
+        private final ArrayDeque<Long> ends = new ArrayDeque<>();
+        private long dropped;
+        private long position;
+        private int last = -1;
+        private boolean eof;
+
+        LineEnds(InputStream in, long start) {
+            super(in);
+            this.start = start;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b < 0) {
+                eof = true;
+            } else {
+                scan(b);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] bytes, int off, int len) throws IOException {
+            int n = super.read(bytes, off, len);
+            if (n < 0) {
+                eof = true;
+            }
+            for (int i = 0; i < n; i++) {
+                scan(bytes[off + i]);
+            }
+            return n;
+        }
+
+        private void scan(int b) {
+            position++;
+            if (b == '\r') {
+                ends.addLast(position);
+            } else if (b == '\n') {
+                if (last == '\r') {
+                    ends.pollLast();
+                }
+                ends.addLast(position);
+            }
+            last = b;
+        }
+
+        // Offset dans le fichier après la ligne line du flux ; les lignes précédentes sont oubliées
+        long offset(long line) {
+            while (dropped < line - 1 && !ends.isEmpty()) {
+                ends.pollFirst();
+                dropped++;
+            }
+            if (dropped != line - 1) {
+                return -1;
+            }
+            if (!ends.isEmpty()) {
+                return start + ends.peekFirst();
+            }
+            // commons-csv compte aussi une dernière ligne sans fin de ligne
+            return eof ? start + position : -1;
+        }
+    }
+}
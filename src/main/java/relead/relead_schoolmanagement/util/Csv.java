@@ -5,17 +5,20 @@ import org.springframework.web.multipart.MultipartFile;
 import relead.relead_schoolmanagement.entities.Level;
 import relead.relead_schoolmanagement.entities.Student;
 import relead.relead_schoolmanagement.exceptions.AppExceptions;
+import relead.relead_schoolmanagement.repositories.StudentRepositoryCustom;
 
 import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
+import java.util.Set;
 
 public class Csv {
 
     public static final String TYPE = "text/csv";
+    static final Set<String> GZIP_TYPES = Set.of("application/gzip", "application/x-gzip");
     static final String[] HEADERS = { "Username", "Level" };
+    static final String[] CHANGE_HEADERS = { "Id", "Username", "Level", "Deleted" };
 
     // 1. Add a private constructor to hide the implicit public one
     private Csv() {
@@ -29,64 +32,63 @@ public class Csv {
 
         String fileName = file.getOriginalFilename();
 
-        return TYPE.equals(file.getContentType()) ||
-                (fileName != null && fileName.endsWith(".csv"));
+        // un .csv.gz est décompressé à la volée (voir CsvCodec)
+        return TYPE.equals(file.getContentType()) || GZIP_TYPES.contains(file.getContentType()) ||
+                (fileName != null && (fileName.endsWith(".csv") || fileName.endsWith(".csv.gz")));
     }
 
-    public static ByteArrayInputStream studentsToCSV(List<Student> students) {
+    public static CSVPrinter openPrinter(OutputStream out) throws IOException {
+        return openPrinter(out, HEADERS);
+    }
+
+    public static CSVPrinter openChangePrinter(OutputStream out) throws IOException {
+        return openPrinter(out, CHANGE_HEADERS);
+    }
+
+    private static CSVPrinter openPrinter(OutputStream out, String[] headers) throws IOException {
         final CSVFormat format = CSVFormat.DEFAULT.builder()
-                .setHeader(HEADERS)
+                .setHeader(headers)
                 .setQuoteMode(QuoteMode.MINIMAL)
                 .build();
+        return new CSVPrinter(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)), format);
+    }
 
-        try (ByteArrayOutputStream out = new ByteArrayOutputStream();
-             CSVPrinter csvPrinter = new CSVPrinter(new PrintWriter(out), format)) {
-
-            for (Student student : students) {
-                List<String> data = Arrays.asList(
-                        student.getUsername(),
-                        student.getLevel().name()
-                );
-                csvPrinter.printRecord(data);
-            }
-
-            csvPrinter.flush();
-            return new ByteArrayInputStream(out.toByteArray());
+    public static void printStudent(CSVPrinter csvPrinter, Student student) {
+        try {
+            csvPrinter.printRecord(student.getUsername(), student.getLevel() == null ? "" : student.getLevel().name());
         } catch (IOException e) {
-            // 3. Throw a dedicated exception (On réutilise CsvImportException par simplicité ou on en crée une CsvExportException)
-            throw new AppExceptions.CsvImportException("Fail to export data to CSV file: " + e.getMessage());
+            throw new UncheckedIOException(e);
         }
     }
 
-    public static List<Student> csvToStudents(InputStream is) {
-        try (BufferedReader fileReader = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8));
-             CSVParser csvParser = new CSVParser(fileReader,
-                     CSVFormat.DEFAULT.builder().setHeader().setSkipHeaderRecord(true).setIgnoreHeaderCase(true).setTrim(true).build())) {
-
-            List<Student> students = new ArrayList<>();
-            Iterable<CSVRecord> csvRecords = csvParser.getRecords();
-
-            for (CSVRecord csvRecord : csvRecords) {
-                // 4. Extract nested try block into a separate method
-                Level level = parseLevel(csvRecord.get("Level"));
+    public static void printChange(CSVPrinter csvPrinter, StudentRepositoryCustom.ChangeRow change) {
+        try {
+            csvPrinter.printRecord(change.id(), change.username(),
+                    change.level() == null ? "" : change.level().name(), change.deleted());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 
-                Student student = new Student(
-                        null,
-                        csvRecord.get("Username"),
-                        level
-                );
-                students.add(student);
-            }
+    public static StudentCsvReader openStudents(InputStream is) {
+        try {
+            return openStudents(Channels.newChannel(CsvCodec.decodeDetected(is)));
+        } catch (IOException e) {
+            throw new AppExceptions.CsvImportException("Fail to parse CSV file: " + e.getMessage());
+        }
+    }
 
-            return students;
+    // Tokenizer rapide pour le schéma connu (Username, Level), commons-csv sert de repli
+    public static StudentCsvReader openStudents(ReadableByteChannel channel) {
+        try {
+            return FastStudentCsvReader.open(channel);
         } catch (IOException e) {
-            // 5. Throw a dedicated exception
             throw new AppExceptions.CsvImportException("Fail to parse CSV file: " + e.getMessage());
         }
     }
 
     // Helper method pour parser le Level proprement
-    private static Level parseLevel(String levelStr) {
+    static Level parseLevel(String levelStr) {
         if (levelStr == null || levelStr.isBlank()) {
             return Level.FRESHMAN;
         }
@@ -0,0 +1,101 @@
+package relead.relead_schoolmanagement.util;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Transfer encodings supported for CSV uploads and exports. Both directions are streaming:
+ * a compressed upload is inflated while it is parsed, an export is deflated while rows are written.
+ */
+public enum CsvCodec {
+
+    IDENTITY("identity") {
+        @Override
+        public InputStream decode(InputStream in) {
+            return in;
+        }
+
+        @Override
+        public OutputStream encode(OutputStream out) {
+            return out;
+        }
+    },
+
+    GZIP("gzip") {
+        @Override
+        public InputStream decode(InputStream in) throws IOException {
+            return new GZIPInputStream(in, BUFFER_SIZE);
+        }
+
+        @Override
+        public OutputStream encode(OutputStream out) throws IOException {
+            return new GZIPOutputStream(out, BUFFER_SIZE);
+        }
+    };
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final String contentEncoding;
+
+    CsvCodec(String contentEncoding) {
+        this.contentEncoding = contentEncoding;
+    }
+
+    public String getContentEncoding() {
+        return contentEncoding;
+    }
+
+    public abstract InputStream decode(InputStream in) throws IOException;
+
+    public abstract OutputStream encode(OutputStream out) throws IOException;
+
+    /**
+     * Inflates the stream when it starts with the gzip magic number, whatever the file name or
+     * content type claimed by the client.
+     */
+    public static InputStream decodeDetected(InputStream in) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(in, BUFFER_SIZE);
+        buffered.mark(2);
+        int b1 = buffered.read();
+        int b2 = buffered.read();
+        buffered.reset();
+        boolean gzip = b1 == (GZIPInputStream.GZIP_MAGIC & 0xFF) && b2 == (GZIPInputStream.GZIP_MAGIC >> 8);
+        return gzip ? GZIP.decode(buffered) : buffered;
+    }
+
+    /**
+     * Picks the response codec from an Accept-Encoding header, ignoring codings refused with q=0.
+     */
+    public static CsvCodec negotiate(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return IDENTITY;
+        }
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.trim().toLowerCase(Locale.ROOT).split(";");
+            String coding = tokens[0].trim();
+            if ((coding.equals("gzip") || coding.equals("x-gzip")) && !refused(tokens)) {
+                return GZIP;
+            }
+        }
+        return IDENTITY;
+    }
+
+    private static boolean refused(String[] tokens) {
+        for (int i = 1; i < tokens.length; i++) {
+            String param = tokens[i].trim();
+            if (param.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(param.substring(2)) <= 0;
+                } catch (NumberFormatException e) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
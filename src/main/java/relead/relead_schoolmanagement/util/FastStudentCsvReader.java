@@ -0,0 +1,310 @@
+package relead.relead_schoolmanagement.util;
+
+import relead.relead_schoolmanagement.entities.Level;
+import relead.relead_schoolmanagement.exceptions.AppExceptions;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Tokenizer specialised for the two-column import schema (Username, Level).
+ * <p>
+ * Lines are scanned directly in a byte buffer filled from the channel: the only allocation per row is the
+ * username string, and the level is matched against precomputed ASCII names without {@code toUpperCase}
+ * or exceptions. As soon as the input contains something this fast path does not handle (quotes, extra
+ * columns, a different header) the remaining bytes are handed over to {@link CommonsStudentCsvReader}.
+ */
+final class FastStudentCsvReader implements StudentCsvReader {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String USERNAME = "Username";
+    private static final String LEVEL = "Level";
+    private static final Level[] LEVELS = Level.values();
+    private static final byte[][] LEVEL_NAMES = new byte[LEVELS.length][];
+
+    static {
+        for (int i = 0; i < LEVELS.length; i++) {
+            LEVEL_NAMES[i] = LEVELS[i].name().getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    private final ReadableByteChannel channel;
+    private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    // position dans le channel de l'octet buffer[0]
+    private long bufferOffset;
+    private int pos;
+    private int limit;
+    private boolean eof;
+
+    // bornes de la ligne courante dans le buffer
+    private int lineStart;
+    private int lineEnd;
+    private long lineNumber;
+
+    private int usernameColumn;
+    private int levelColumn;
+    private String username;
+    private Level level;
+    private StudentCsvReader fallback;
+
+    private FastStudentCsvReader(ReadableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    static StudentCsvReader open(ReadableByteChannel channel) throws IOException {
+        FastStudentCsvReader reader = new FastStudentCsvReader(channel);
+        if (!reader.readHeader()) {
+            // header inattendu : on rejoue tout ce qui a déjà été lu dans commons-csv
+            return CommonsStudentCsvReader.withHeaderRecord(reader.remainingInput(0), reader.bufferOffset);
+        }
+        return reader;
+    }
+
+    /**
+     * Reads a header-less slice of a file whose columns are already known. Used to parse line-aligned
+     * chunks of the same file in parallel, or to resume a file after its last checkpoint.
+     * {@code start} is the position of the slice in the file, so that {@link #offset()} stays file-relative.
+     */
+    static FastStudentCsvReader openRange(ReadableByteChannel channel, long start, boolean usernameFirst, long firstLine) {
+        FastStudentCsvReader reader = new FastStudentCsvReader(channel);
+        reader.bufferOffset = start;
+        reader.usernameColumn = usernameFirst ? 0 : 1;
+        reader.levelColumn = usernameFirst ? 1 : 0;
+        reader.lineNumber = firstLine - 1;
+        return reader;
+    }
+
+    boolean isUsernameFirst() {
+        return usernameColumn == 0;
+    }
+
+    @Override
+    public long offset() {
+        return fallback != null ? fallback.offset() : bufferOffset + pos;
+    }
+
+    @Override
+    public boolean next() {
+        if (fallback != null) {
+            return fallback.next();
+        }
+        try {
+            while (readLine()) {
+                lineNumber++;
+                if (lineStart == lineEnd) {
+                    continue; // commons-csv ignore aussi les lignes vides
+                }
+                if (!tokenize()) {
+                    switchToFallback();
+                    return fallback.next();
+                }
+                return true;
+            }
+            return false;
+        } catch (IOException e) {
+            throw new AppExceptions.CsvImportException("Fail to parse CSV file: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public long lineNumber() {
+        return fallback != null ? fallback.lineNumber() : lineNumber;
+    }
+
+    @Override
+    public String username() {
+        return fallback != null ? fallback.username() : username;
+    }
+
+    @Override
+    public Level level() {
+        return fallback != null ? fallback.level() : level;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (fallback != null) {
+            fallback.close();
+        }
+        channel.close();
+    }
+
+    private boolean readHeader() throws IOException {
+        if (!readLine()) {
+            return false;
+        }
+        lineNumber = 1;
+        byte[] bytes = buffer.array();
+        // BOM UTF-8 éventuel
+        if (lineEnd - lineStart >= 3 && bytes[lineStart] == (byte) 0xEF
+                && bytes[lineStart + 1] == (byte) 0xBB && bytes[lineStart + 2] == (byte) 0xBF) {
+            lineStart += 3;
+        }
+        int comma = -1;
+        for (int i = lineStart; i < lineEnd; i++) {
+            byte b = bytes[i];
+            if (b == '"' || b == '\r' || (b == ',' && comma >= 0)) {
+                return false;
+            }
+            if (b == ',') {
+                comma = i;
+            }
+        }
+        if (comma < 0) {
+            return false;
+        }
+        String first = new String(bytes, lineStart, comma - lineStart, StandardCharsets.UTF_8).trim();
+        String second = new String(bytes, comma + 1, lineEnd - comma - 1, StandardCharsets.UTF_8).trim();
+        if (USERNAME.equalsIgnoreCase(first) && LEVEL.equalsIgnoreCase(second)) {
+            usernameColumn = 0;
+            levelColumn = 1;
+            return true;
+        }
+        if (LEVEL.equalsIgnoreCase(first) && USERNAME.equalsIgnoreCase(second)) {
+            usernameColumn = 1;
+            levelColumn = 0;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Splits the current line into its (at most two) fields.
+     * @return false when the line needs the general parser
+     */
+    private boolean tokenize() {
+        byte[] bytes = buffer.array();
+        int comma = -1;
+        for (int i = lineStart; i < lineEnd; i++) {
+            byte b = bytes[i];
+            if (b == '"' || b == '\r' || (b == ',' && comma >= 0)) {
+                return false;
+            }
+            if (b == ',') {
+                comma = i;
+            }
+        }
+        int firstEnd = comma < 0 ? lineEnd : comma;
+        username = usernameColumn == 0
+                ? decode(bytes, lineStart, firstEnd)
+                : (comma < 0 ? null : decode(bytes, comma + 1, lineEnd));
+        level = levelColumn == 0
+                ? matchLevel(bytes, lineStart, firstEnd)
+                : (comma < 0 ? Level.FRESHMAN : matchLevel(bytes, comma + 1, lineEnd));
+        return true;
+    }
+
+    private static String decode(byte[] bytes, int from, int to) {
+        while (from < to && (bytes[from] & 0xFF) <= ' ') {
+            from++;
+        }
+        while (to > from && (bytes[to - 1] & 0xFF) <= ' ') {
+            to--;
+        }
+        return new String(bytes, from, to - from, StandardCharsets.UTF_8);
+    }
+
+    // Même règle que Csv.parseLevel : vide ou inconnu => FRESHMAN
+    static Level matchLevel(byte[] bytes, int from, int to) {
+        while (from < to && (bytes[from] & 0xFF) <= ' ') {
+            from++;
+        }
+        while (to > from && (bytes[to - 1] & 0xFF) <= ' ') {
+            to--;
+        }
+        int length = to - from;
+        for (int l = 0; l < LEVEL_NAMES.length; l++) {
+            byte[] name = LEVEL_NAMES[l];
+            if (name.length != length) {
+                continue;
+            }
+            int i = 0;
+            // les noms de Level sont en lettres ASCII : (b | 0x20) compare sans tenir compte de la casse
+            while (i < length && (bytes[from + i] | 0x20) == (name[i] | 0x20)) {
+                i++;
+            }
+            if (i == length) {
+                return LEVELS[l];
+            }
+        }
+        return Level.FRESHMAN;
+    }
+
+    /**
+     * Positions lineStart/lineEnd on the next line (without its terminator), refilling the buffer as needed.
+     */
+    private boolean readLine() throws IOException {
+        byte[] bytes = buffer.array();
+        int scanFrom = pos;
+        while (true) {
+            for (int i = scanFrom; i < limit; i++) {
+                if (bytes[i] == '\n') {
+                    setLine(pos, i);
+                    pos = i + 1;
+                    return true;
+                }
+            }
+            if (eof) {
+                if (pos == limit) {
+                    return false;
+                }
+                setLine(pos, limit);
+                pos = limit;
+                return true;
+            }
+            scanFrom = limit - pos;
+            fill();
+            bytes = buffer.array();
+        }
+    }
+
+    private void setLine(int start, int end) {
+        lineStart = start;
+        lineEnd = end > start && buffer.array()[end - 1] == '\r' ? end - 1 : end;
+    }
+
+    // Décale la ligne en cours au début du buffer (en l'agrandissant si elle ne tient pas) puis lit la suite
+    private void fill() throws IOException {
+        int pending = limit - pos;
+        if (pos == 0 && limit == buffer.capacity()) {
+            ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+            larger.put(buffer.array(), 0, limit);
+            buffer = larger;
+        } else {
+            System.arraycopy(buffer.array(), pos, buffer.array(), 0, pending);
+            bufferOffset += pos;
+        }
+        pos = 0;
+        limit = pending;
+        buffer.limit(buffer.capacity()).position(limit);
+        int n = channel.read(buffer);
+        while (n == 0) {
+            n = channel.read(buffer);
+        }
+        if (n < 0) {
+            eof = true;
+        } else {
+            limit += n;
+        }
+    }
+
+    private void switchToFallback() throws IOException {
+        String[] header = new String[2];
+        header[usernameColumn] = USERNAME;
+        header[levelColumn] = LEVEL;
+        fallback = CommonsStudentCsvReader.withHeader(remainingInput(lineStart), header, lineNumber,
+                bufferOffset + lineStart);
+    }
+
+    // Octets du buffer à partir de from, suivis du reste du channel
+    private InputStream remainingInput(int from) {
+        InputStream buffered = new ByteArrayInputStream(buffer.array(), from, limit - from);
+        return eof ? buffered : new SequenceInputStream(buffered, Channels.newInputStream(channel));
+    }
+}
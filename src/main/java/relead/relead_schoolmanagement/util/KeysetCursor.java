@@ -0,0 +1,32 @@
+package relead.relead_schoolmanagement.util;
+
+import relead.relead_schoolmanagement.exceptions.AppExceptions;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position after the last row of a keyset page: the sort it was produced with, and the (sort value, id) of that row.
+ * Clients only see it as an opaque base64url string.
+ */
+public record KeysetCursor(String sort, boolean descending, long id, String value) {
+
+    public String encode() {
+        String raw = sort + '\n' + (descending ? 'd' : 'a') + '\n' + id + '\n' + (value == null ? "" : value);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static KeysetCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            // la valeur est en dernier : elle peut contenir n'importe quel caractère
+            String[] parts = raw.split("\n", 4);
+            if (parts.length != 4 || !(parts[1].equals("a") || parts[1].equals("d"))) {
+                throw new IllegalArgumentException(raw);
+            }
+            return new KeysetCursor(parts[0], parts[1].equals("d"), Long.parseLong(parts[2]), parts[3]);
+        } catch (IllegalArgumentException e) {
+            throw new AppExceptions.BadRequestException("Invalid cursor: " + cursor);
+        }
+    }
+}
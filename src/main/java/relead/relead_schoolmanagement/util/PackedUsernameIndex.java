@@ -0,0 +1,182 @@
+package relead.relead_schoolmanagement.util;
+
+import relead.relead_schoolmanagement.entities.Level;
+import relead.relead_schoolmanagement.entities.Student;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Immutable, case-insensitively sorted set of usernames for prefix lookups. All usernames are packed into a
+ * single char buffer addressed by an offsets array, with ids and level codes in parallel primitive arrays,
+ * so an entry costs its characters plus 13 bytes instead of a String and an entity per student.
+ * <p>
+ * Entries are ordered by {@link #ORDER}: username compared char by char after {@link Character#toLowerCase(char)},
+ * then id.
+ */
+public final class PackedUsernameIndex {
+
+    public static final Comparator<Student> ORDER = (a, b) -> {
+        int c = compareIgnoreCase(a.getUsername(), b.getUsername());
+        return c != 0 ? c : Long.compare(a.getId(), b.getId());
+    };
+
+    private static final Level[] LEVELS = Level.values();
+    private static final byte NO_LEVEL = -1;
+
+    public static final PackedUsernameIndex EMPTY = new PackedUsernameIndex(new char[0], new int[1], new long[0], new byte[0]);
+
+    private final char[] chars;
+    private final int[] offsets;
+    private final long[] ids;
+    private final byte[] levels;
+    private final long maxId;
+
+    private PackedUsernameIndex(char[] chars, int[] offsets, long[] ids, byte[] levels) {
+        this.chars = chars;
+        this.offsets = offsets;
+        this.ids = ids;
+        this.levels = levels;
+        this.maxId = Arrays.stream(ids).max().orElse(Long.MIN_VALUE);
+    }
+
+    /**
+     * @param students entries already sorted by {@link #ORDER}
+     */
+    public static PackedUsernameIndex of(List<Student> students) {
+        int size = students.size();
+        int length = 0;
+        for (Student s : students) {
+            length += s.getUsername().length();
+        }
+        char[] chars = new char[length];
+        int[] offsets = new int[size + 1];
+        long[] ids = new long[size];
+        byte[] levels = new byte[size];
+        for (int i = 0; i < size; i++) {
+            Student s = students.get(i);
+            String username = s.getUsername();
+            username.getChars(0, username.length(), chars, offsets[i]);
+            offsets[i + 1] = offsets[i] + username.length();
+            ids[i] = s.getId();
+            levels[i] = s.getLevel() == null ? NO_LEVEL : (byte) s.getLevel().ordinal();
+        }
+        return new PackedUsernameIndex(chars, offsets, ids, levels);
+    }
+
+    public static PackedUsernameIndex sorted(Student[] students) {
+        Arrays.sort(students, ORDER);
+        return of(Arrays.asList(students));
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * Highest id in the index: a larger id cannot be in it.
+     */
+    public long maxId() {
+        return maxId;
+    }
+
+    public long id(int i) {
+        return ids[i];
+    }
+
+    public Level level(int i) {
+        return levels[i] == NO_LEVEL ? null : LEVELS[levels[i]];
+    }
+
+    public String username(int i) {
+        return new String(chars, offsets[i], offsets[i + 1] - offsets[i]);
+    }
+
+    public Student student(int i) {
+        return new Student(ids[i], username(i), level(i));
+    }
+
+    /**
+     * @return the first position whose username is not before {@code prefix}, {@code prefix} being lower-cased already
+     */
+    public int lowerBound(String prefix) {
+        int low = 0;
+        int high = ids.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compareTo(mid, prefix) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    public boolean startsWith(int i, String prefix) {
+        int start = offsets[i];
+        if (offsets[i + 1] - start < prefix.length()) {
+            return false;
+        }
+        for (int k = 0; k < prefix.length(); k++) {
+            if (Character.toLowerCase(chars[start + k]) != prefix.charAt(k)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compares the entry at {@code i} with {@code other} in {@link #ORDER}.
+     */
+    public int compareTo(int i, Student other) {
+        int c = compareTo(i, other.getUsername());
+        return c != 0 ? c : Long.compare(ids[i], other.getId());
+    }
+
+    /**
+     * Estimated heap footprint of the arrays, headers included.
+     */
+    public long memoryBytes() {
+        return array(chars.length * 2L) + array(offsets.length * 4L) + array(ids.length * 8L) + array(levels.length);
+    }
+
+    private static long array(long bytes) {
+        return (16 + bytes + 7) & ~7L;
+    }
+
+    private int compareTo(int i, String key) {
+        int start = offsets[i];
+        int length = offsets[i + 1] - start;
+        int n = Math.min(length, key.length());
+        for (int k = 0; k < n; k++) {
+            char a = Character.toLowerCase(chars[start + k]);
+            char b = Character.toLowerCase(key.charAt(k));
+            if (a != b) {
+                return a - b;
+            }
+        }
+        return length - key.length();
+    }
+
+    public static String lowerCase(String s) {
+        char[] lower = new char[s.length()];
+        for (int k = 0; k < lower.length; k++) {
+            lower[k] = Character.toLowerCase(s.charAt(k));
+        }
+        return new String(lower);
+    }
+
+    private static int compareIgnoreCase(String a, String b) {
+        int n = Math.min(a.length(), b.length());
+        for (int k = 0; k < n; k++) {
+            char x = Character.toLowerCase(a.charAt(k));
+            char y = Character.toLowerCase(b.charAt(k));
+            if (x != y) {
+                return x - y;
+            }
+        }
+        return a.length() - b.length();
+    }
+}
@@ -0,0 +1,48 @@
+package relead.relead_schoolmanagement.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Read-only view over the bytes [start, end) of a file channel. Positional reads are used so several views
+ * can read the same channel concurrently; closing a view leaves the underlying channel open.
+ */
+final class RangeChannel implements ReadableByteChannel {
+    private final FileChannel file;
+    private final long end;
+    private long position;
+    private boolean open = true;
+
+    RangeChannel(FileChannel file, long start, long end) {
+        this.file = file;
+        this.position = start;
+        this.end = end;
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        if (position >= end) {
+            return -1;
+        }
+        int max = (int) Math.min(dst.remaining(), end - position);
+        ByteBuffer slice = dst.slice(dst.position(), max);
+        int n = file.read(slice, position);
+        if (n > 0) {
+            dst.position(dst.position() + n);
+            position += n;
+        }
+        return n;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() {
+        open = false;
+    }
+}
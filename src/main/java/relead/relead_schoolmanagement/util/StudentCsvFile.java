@@ -0,0 +1,177 @@
+package relead.relead_schoolmanagement.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * A spooled student CSV file split into line-aligned chunks that can be parsed independently.
+ * Each chunk knows the line number of its first row so error reports keep pointing at the original file.
+ */
+public final class StudentCsvFile {
+
+    public record Chunk(int index, long start, long end, long firstLine) {
+        public long length() {
+            return end - start;
+        }
+    }
+
+    private static final int SCAN_BUFFER_SIZE = 64 * 1024;
+
+    private final FileChannel channel;
+    private final boolean usernameFirst;
+    private final List<Chunk> chunks;
+
+    private StudentCsvFile(FileChannel channel, boolean usernameFirst, List<Chunk> chunks) {
+        this.channel = channel;
+        this.usernameFirst = usernameFirst;
+        this.chunks = chunks;
+    }
+
+    /**
+     * Splits the file into about {@code parts} chunks. Line counting runs on the given executor.
+     * @return null when the file cannot be split safely (unknown header, or quotes that may hide line breaks),
+     * in which case it must be read sequentially
+     */
+    public static StudentCsvFile split(FileChannel channel, int parts, ExecutorService executor) throws IOException {
+        return split(channel, parts, executor, 0, 1);
+    }
+
+    /**
+     * Same as {@link #split(FileChannel, int, ExecutorService)} but only covers the bytes after {@code from},
+     * the offset right after line {@code lastLine} (for instance the last checkpoint of an interrupted import).
+     */
+    public static StudentCsvFile split(FileChannel channel, int parts, ExecutorService executor,
+                                       long from, long lastLine) throws IOException {
+        long size = channel.size();
+        Header header = readHeader(channel);
+        if (header == null) {
+            return null;
+        }
+        boolean usernameFirst = header.usernameFirst();
+        long dataStart = Math.max(header.dataStart(), from);
+
+        List<long[]> ranges = new ArrayList<>();
+        long chunkSize = Math.max(SCAN_BUFFER_SIZE, (size - dataStart) / Math.max(1, parts));
+        long start = dataStart;
+        while (start < size) {
+            long end = start + chunkSize >= size ? size : nextLineStart(channel, start + chunkSize, size);
+            ranges.add(new long[]{start, end});
+            start = end;
+        }
+
+        List<Callable<long[]>> scans = new ArrayList<>();
+        for (long[] range : ranges) {
+            scans.add(() -> scan(channel, range[0], range[1]));
+        }
+        List<Chunk> chunks = new ArrayList<>();
+        long firstLine = dataStart == header.dataStart() ? 2 : lastLine + 1; // le header occupe la ligne 1
+        try {
+            List<Future<long[]>> results = executor.invokeAll(scans);
+            for (int i = 0; i < ranges.size(); i++) {
+                long[] scan = results.get(i).get();
+                if (scan[1] > 0) {
+                    return null;
+                }
+                chunks.add(new Chunk(i, ranges.get(i)[0], ranges.get(i)[1], firstLine));
+                firstLine += scan[0];
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while splitting CSV file", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Fail to split CSV file: " + e.getCause().getMessage(), e.getCause());
+        }
+        return new StudentCsvFile(channel, usernameFirst, chunks);
+    }
+
+    public List<Chunk> getChunks() {
+        return chunks;
+    }
+
+    public StudentCsvReader open(Chunk chunk) {
+        return FastStudentCsvReader.openRange(new RangeChannel(channel, chunk.start(), chunk.end()), chunk.start(),
+                usernameFirst, chunk.firstLine());
+    }
+
+    /**
+     * Opens a reader on the rows that follow {@code from}, the offset right after line {@code lastLine}.
+     * @return null when the header of the file is not one the fast reader understands
+     */
+    public static StudentCsvReader resume(FileChannel channel, long from, long lastLine) throws IOException {
+        Header header = readHeader(channel);
+        if (header == null || from < header.dataStart()) {
+            return null;
+        }
+        return FastStudentCsvReader.openRange(new RangeChannel(channel, from, channel.size()), from,
+                header.usernameFirst(), lastLine + 1);
+    }
+
+    private record Header(boolean usernameFirst, long dataStart) {
+    }
+
+    private static Header readHeader(FileChannel channel) throws IOException {
+        try (StudentCsvReader header = FastStudentCsvReader.open(new RangeChannel(channel, 0, channel.size()))) {
+            if (!(header instanceof FastStudentCsvReader fast)) {
+                return null;
+            }
+            return new Header(fast.isUsernameFirst(), fast.offset());
+        }
+    }
+
+    // Premier octet après le prochain '\n' à partir de from
+    private static long nextLineStart(FileChannel channel, long from, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        long position = from;
+        while (position < size) {
+            buffer.clear();
+            int n = channel.read(buffer, position);
+            if (n <= 0) {
+                break;
+            }
+            for (int i = 0; i < n; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += n;
+        }
+        return size;
+    }
+
+    // {nombre de lignes, nombre de guillemets} sur [start, end)
+    private static long[] scan(FileChannel channel, long start, long end) {
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        byte[] bytes = buffer.array();
+        long lines = 0;
+        long quotes = 0;
+        long position = start;
+        try {
+            while (position < end) {
+                buffer.clear().limit((int) Math.min(SCAN_BUFFER_SIZE, end - position));
+                int n = channel.read(buffer, position);
+                if (n <= 0) {
+                    break;
+                }
+                for (int i = 0; i < n; i++) {
+                    if (bytes[i] == '\n') {
+                        lines++;
+                    } else if (bytes[i] == '"') {
+                        quotes++;
+                    }
+                }
+                position += n;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new long[]{lines, quotes};
+    }
+}
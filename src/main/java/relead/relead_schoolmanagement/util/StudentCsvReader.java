@@ -0,0 +1,30 @@
+package relead.relead_schoolmanagement.util;
+
+import relead.relead_schoolmanagement.entities.Level;
+
+import java.io.Closeable;
+
+/**
+ * Forward-only reader over the rows of a student CSV upload.
+ * Rows are pulled one at a time so the whole file never has to be held in memory.
+ */
+public interface StudentCsvReader extends Closeable {
+
+    /** Advances to the next data row, returns false once the input is exhausted. */
+    boolean next();
+
+    /** Line number of the current row in the original file (the header is line 1). */
+    long lineNumber();
+
+    String username();
+
+    Level level();
+
+    /**
+     * Offset in the file of the first byte after the current row, or -1 when the reader cannot tell.
+     * Reading again from this offset yields exactly the rows that come after the current one.
+     */
+    default long offset() {
+        return -1;
+    }
+}
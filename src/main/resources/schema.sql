@@ -0,0 +1,125 @@
+-- Exécuté après la création des tables par Hibernate (spring.jpa.defer-datasource-initialization).
+-- Chaque instruction se termine par ^; car les corps de fonctions contiennent des ;
+
+-- Ids : une séquence (incrément 1) commune aux inserts JPA, qui la lisent par blocs (@BlockSequence), et aux
+-- imports SQL, qui passent par la valeur par défaut. Remplace la colonne IDENTITY, qui empêche Hibernate de
+-- regrouper les INSERT ; setval repart du plus grand id existant
+ALTER TABLE student ALTER COLUMN id DROP IDENTITY IF EXISTS^;
+CREATE SEQUENCE IF NOT EXISTS student_id_seq OWNED BY student.id^;
+ALTER TABLE student ALTER COLUMN id SET DEFAULT nextval('student_id_seq')^;
+SELECT setval('student_id_seq', greatest((SELECT max(id) FROM student), (SELECT last_value FROM student_id_seq)))^;
+
+-- Lignes supprimées (ou renommées), conservées pour l'export delta
+CREATE TABLE IF NOT EXISTS student_tombstone (
+    id         bigserial PRIMARY KEY,
+    student_id bigint      NOT NULL,
+    username   varchar(255) NOT NULL,
+    change_xid bigint      NOT NULL,
+    deleted_at timestamptz NOT NULL
+)^;
+
+CREATE INDEX IF NOT EXISTS idx_student_tombstone_change_xid ON student_tombstone (change_xid, id)^;
+
+-- Marque chaque écriture avec l'identifiant de sa transaction : toutes les transactions dont l'xid est
+-- inférieur au xmin du snapshot courant sont terminées, ce qui donne un curseur sans trou
+CREATE OR REPLACE FUNCTION student_track_change() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'DELETE' OR (TG_OP = 'UPDATE' AND OLD.username IS DISTINCT FROM NEW.username) THEN
+        INSERT INTO student_tombstone (student_id, username, change_xid, deleted_at)
+        VALUES (OLD.id, OLD.username, pg_current_xact_id()::text::bigint, clock_timestamp());
+    END IF;
+    IF TG_OP = 'DELETE' THEN
+        RETURN OLD;
+    END IF;
+    -- version (@Version) : déjà incrémentée par Hibernate, à faire pour les écritures SQL (imports)
+    IF TG_OP = 'INSERT' THEN
+        NEW.version := coalesce(NEW.version, 0);
+    ELSIF NEW.version IS NOT DISTINCT FROM OLD.version THEN
+        NEW.version := coalesce(OLD.version, 0) + 1;
+    END IF;
+    NEW.change_xid := pg_current_xact_id()::text::bigint;
+    NEW.updated_at := clock_timestamp();
+    RETURN NEW;
+END
+$$ LANGUAGE plpgsql^;
+
+CREATE OR REPLACE TRIGGER student_track_change
+    BEFORE INSERT OR UPDATE OR DELETE ON student
+    FOR EACH ROW EXECUTE FUNCTION student_track_change()^;
+
+-- Lignes antérieures au trigger
+UPDATE student SET level = level WHERE change_xid IS NULL^;
+
+-- Lignes antérieures à la colonne version
+UPDATE student SET version = 0 WHERE version IS NULL^;
+
+-- Compteur de modifications (ETag des listes, Last-Modified de l'export) : augmenté une fois par instruction qui
+-- écrit des lignes, quelle qu'en soit l'origine (API, import, SQL direct, autre instance)
+CREATE TABLE IF NOT EXISTS student_change (
+    id         smallint    PRIMARY KEY CHECK (id = 1),
+    counter    bigint      NOT NULL,
+    changed_at timestamptz NOT NULL
+)^;
+
+INSERT INTO student_change (id, counter, changed_at) VALUES (1, 0, clock_timestamp()) ON CONFLICT DO NOTHING^;
+
+CREATE OR REPLACE FUNCTION student_count_change() RETURNS trigger AS $$
+BEGIN
+    -- tombstones écrites par student_track_change : déjà comptées avec l'instruction sur student
+    IF pg_trigger_depth() > 1 THEN
+        RETURN NULL;
+    END IF;
+    -- instruction sans ligne écrite (ON CONFLICT DO NOTHING, UPDATE sans correspondance) : rien n'a changé
+    IF TG_OP <> 'TRUNCATE' THEN
+        IF NOT EXISTS (SELECT 1 FROM changed) THEN
+            RETURN NULL;
+        END IF;
+    END IF;
+    UPDATE student_change SET counter = counter + 1 WHERE id = 1;
+    RETURN NULL;
+END
+$$ LANGUAGE plpgsql^;
+
+CREATE OR REPLACE TRIGGER student_count_insert AFTER INSERT ON student
+    REFERENCING NEW TABLE AS changed FOR EACH STATEMENT EXECUTE FUNCTION student_count_change()^;
+CREATE OR REPLACE TRIGGER student_count_update AFTER UPDATE ON student
+    REFERENCING NEW TABLE AS changed FOR EACH STATEMENT EXECUTE FUNCTION student_count_change()^;
+CREATE OR REPLACE TRIGGER student_count_delete AFTER DELETE ON student
+    REFERENCING OLD TABLE AS changed FOR EACH STATEMENT EXECUTE FUNCTION student_count_change()^;
+CREATE OR REPLACE TRIGGER student_count_truncate AFTER TRUNCATE ON student
+    FOR EACH STATEMENT EXECUTE FUNCTION student_count_change()^;
+
+CREATE OR REPLACE TRIGGER student_tombstone_count_insert AFTER INSERT ON student_tombstone
+    REFERENCING NEW TABLE AS changed FOR EACH STATEMENT EXECUTE FUNCTION student_count_change()^;
+CREATE OR REPLACE TRIGGER student_tombstone_count_update AFTER UPDATE ON student_tombstone
+    REFERENCING NEW TABLE AS changed FOR EACH STATEMENT EXECUTE FUNCTION student_count_change()^;
+CREATE OR REPLACE TRIGGER student_tombstone_count_delete AFTER DELETE ON student_tombstone
+    REFERENCING OLD TABLE AS changed FOR EACH STATEMENT EXECUTE FUNCTION student_count_change()^;
+CREATE OR REPLACE TRIGGER student_tombstone_count_truncate AFTER TRUNCATE ON student_tombstone
+    FOR EACH STATEMENT EXECUTE FUNCTION student_count_change()^;
+
+-- changed_at est posé au commit (trigger différé) et non à l'écriture : un état lu avant le commit d'une
+-- longue transaction ne porte pas une date plus récente que celle de la modification qui le remplace
+CREATE OR REPLACE FUNCTION student_change_stamp() RETURNS trigger AS $$
+BEGIN
+    UPDATE student_change SET changed_at = clock_timestamp() WHERE id = 1;
+    RETURN NULL;
+END
+$$ LANGUAGE plpgsql^;
+
+-- pas de CREATE OR REPLACE pour un trigger de contrainte
+DROP TRIGGER IF EXISTS student_change_stamp ON student_change^;
+CREATE CONSTRAINT TRIGGER student_change_stamp AFTER UPDATE OF counter ON student_change
+    DEFERRABLE INITIALLY DEFERRED FOR EACH ROW EXECUTE FUNCTION student_change_stamp()^;
+
+-- Recherche par sous-chaîne : index trigram sur lower(username), utilisable par LIKE '%q%' et par <%
+CREATE EXTENSION IF NOT EXISTS pg_trgm^;
+
+CREATE INDEX IF NOT EXISTS idx_student_username_trgm ON student USING gin (lower(username) gin_trgm_ops)^;
+
+-- Filtre par niveau trié par username (GET /api/students/query) : parcours d'index seul, version incluse
+-- pour couvrir les colonnes de StudentView ; la version change à chaque écriture comme change_xid, déjà indexé
+CREATE INDEX IF NOT EXISTS idx_student_level_username ON student (level, username, id) INCLUDE (version)^;
+
+-- Suppression par job d'import : seules les lignes importées par un job sont indexées
+CREATE INDEX IF NOT EXISTS idx_student_import_job ON student (import_job) WHERE import_job IS NOT NULL^;
@@ -1,38 +1,121 @@
 package relead.relead_schoolmanagement;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.ColumnResult;
+import jakarta.persistence.ConstructorResult;
+import jakarta.persistence.SqlResultSetMapping;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
+import org.mockito.InOrder;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+import relead.relead_schoolmanagement.config.ImportProperties;
 import relead.relead_schoolmanagement.dto.AuthenticationRequest;
 import relead.relead_schoolmanagement.dto.AuthenticationResponse;
+import relead.relead_schoolmanagement.dto.BulkResult;
+import relead.relead_schoolmanagement.dto.CursorPage;
+import relead.relead_schoolmanagement.dto.ImportJob;
+import relead.relead_schoolmanagement.dto.ImportSummary;
+import relead.relead_schoolmanagement.dto.PageResponse;
 import relead.relead_schoolmanagement.dto.RegisterRequest;
+import relead.relead_schoolmanagement.dto.StudentCounts;
+import relead.relead_schoolmanagement.dto.StudentFilter;
+import relead.relead_schoolmanagement.dto.StudentLookup;
+import relead.relead_schoolmanagement.dto.StudentView;
 import relead.relead_schoolmanagement.entities.Admin;
+import relead.relead_schoolmanagement.entities.ImportCheckpoint;
 import relead.relead_schoolmanagement.entities.Level;
 import relead.relead_schoolmanagement.entities.Student;
 import relead.relead_schoolmanagement.exceptions.AppExceptions;
 import relead.relead_schoolmanagement.repositories.AdminRepository;
 import relead.relead_schoolmanagement.repositories.StudentRepository;
+import relead.relead_schoolmanagement.repositories.StudentRepositoryCustom;
+import relead.relead_schoolmanagement.repositories.StudentRepositoryCustomImpl;
 import relead.relead_schoolmanagement.services.AdminService;
 import relead.relead_schoolmanagement.services.AuthenticationService;
+import relead.relead_schoolmanagement.services.IStudentService;
+import relead.relead_schoolmanagement.services.ImportCheckpointService;
+import relead.relead_schoolmanagement.services.ImportJobService;
 import relead.relead_schoolmanagement.services.JwtService;
+import relead.relead_schoolmanagement.services.StudentCache;
+import relead.relead_schoolmanagement.services.StudentChangeTracker;
+import relead.relead_schoolmanagement.services.StudentCountService;
+import relead.relead_schoolmanagement.services.StudentQueryCache;
 import relead.relead_schoolmanagement.services.StudentService;
+import relead.relead_schoolmanagement.services.StudentSuggestService;
+import relead.relead_schoolmanagement.util.ColumnarStudentWriter;
+import relead.relead_schoolmanagement.util.Csv;
+import relead.relead_schoolmanagement.util.CsvCodec;
+import relead.relead_schoolmanagement.util.KeysetCursor;
+import relead.relead_schoolmanagement.util.StudentCsvReader;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.lang.reflect.RecordComponent;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.longThat;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -48,6 +131,18 @@ class ReleadSchoolManagementApplicationTests {
     private JwtService jwtService;
     @Mock
     private AuthenticationManager authenticationManager;
+    @Mock
+    private ImportCheckpointService checkpointService;
+    @Mock
+    private StudentSuggestService suggestService;
+    @Mock
+    private StudentCountService countService;
+    @Mock
+    private StudentCache studentCache;
+    @Spy
+    private ImportProperties importProperties = new ImportProperties();
+    @Spy
+    private StudentQueryCache queryCache = new StudentQueryCache(new SimpleMeterRegistry(), 1000, Duration.ofMinutes(1));
 
     @InjectMocks
     private StudentService studentService;
@@ -59,10 +154,12 @@ class ReleadSchoolManagementApplicationTests {
     private AdminService adminService;
 
     private Student student;
+    private StudentView view;
 
     @BeforeEach
     void setUp() {
         student = new Student(1L, "ahmed", Level.FRESHMAN);
+        view = StudentView.of(student);
     }
 
     // --- ADMIN SERVICE TESTS ---
@@ -161,20 +258,63 @@ class ReleadSchoolManagementApplicationTests {
 
     @Test
     void shouldCreateStudent_Success() {
-        when(studentRepository.findByUsername("ahmed")).thenReturn(Optional.empty());
-        when(studentRepository.save(any(Student.class))).thenReturn(student);
+        when(studentRepository.insertIfAbsent(student)).thenReturn(Optional.of(student));
 
         Student result = studentService.create(student);
 
         assertNotNull(result);
         assertEquals("ahmed", result.getUsername());
+        verify(studentCache).put(student);
+        verify(studentCache, never()).findByUsername(any());
     }
 
     @Test
     void shouldThrowException_WhenCreatingDuplicateUsername() {
-        when(studentRepository.findByUsername("ahmed")).thenReturn(Optional.of(student));
-        RuntimeException ex = assertThrows(RuntimeException.class, () -> studentService.create(student));
+        when(studentRepository.insertIfAbsent(student)).thenReturn(Optional.empty());
+        RuntimeException ex = assertThrows(AppExceptions.ResourceConflictException.class, () -> studentService.create(student));
         assertTrue(ex.getMessage().contains("username already exists"));
+        verify(studentCache, never()).put(any(Student.class));
+    }
+
+    @Test
+    void shouldMapConcurrentCreates_ToOneCreatedAndConflicts() throws Exception {
+        // vérifie seulement le service : insertIfAbsent est simulé par un putIfAbsent atomique. L'atomicité
+        // de ON CONFLICT DO NOTHING elle-même est testée contre PostgreSQL dans StudentInsertIfAbsentTest
+        ConcurrentMap<String, Student> table = new ConcurrentHashMap<>();
+        AtomicLong ids = new AtomicLong();
+        when(studentRepository.insertIfAbsent(any(Student.class))).thenAnswer(inv -> {
+            Student s = inv.getArgument(0);
+            Student row = new Student(ids.incrementAndGet(), s.getUsername(), s.getLevel());
+            return table.putIfAbsent(s.getUsername(), row) == null ? Optional.of(row) : Optional.empty();
+        });
+
+        int threads = 16;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Student>> results = new ArrayList<>();
+        for (int i = 0; i < threads * 10; i++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                return studentService.create(new Student(null, "same", Level.JUNIOR));
+            }));
+        }
+        start.countDown();
+        int created = 0;
+        int conflicts = 0;
+        for (Future<Student> result : results) {
+            try {
+                result.get();
+                created++;
+            } catch (ExecutionException e) {
+                assertInstanceOf(AppExceptions.ResourceConflictException.class, e.getCause());
+                conflicts++;
+            }
+        }
+        pool.shutdown();
+
+        assertEquals(1, created);
+        assertEquals(threads * 10 - 1, conflicts);
+        verify(countService, times(1)).added(Level.JUNIOR);
     }
 
     @Test
@@ -185,29 +325,45 @@ class ReleadSchoolManagementApplicationTests {
         Student blankUser = new Student(null, "", Level.FRESHMAN);
         assertThrows(IllegalArgumentException.class, () -> studentService.create(blankUser));
 
-        verify(studentRepository, never()).save(any());
+        verify(studentRepository, never()).insertIfAbsent(any());
     }
 
     @Test
     void shouldGetAllStudents_Paginated() {
-        Page<Student> page = new PageImpl<>(Collections.singletonList(student));
-        when(studentRepository.findAll(any(Pageable.class))).thenReturn(page);
+        Page<StudentView> page = new PageImpl<>(Collections.singletonList(view));
+        when(studentRepository.findViewsBy(any(Pageable.class))).thenReturn(page);
 
-        Page<Student> result = studentService.getAll(0, 10);
+        Page<StudentView> result = studentService.getAll(0, 10);
 
         assertEquals(1, result.getTotalElements());
+        verify(studentRepository, never()).findAll(any(Pageable.class));
+    }
+
+    @Test
+    void shouldQueryWithCombinedCriteria_SortingOnlyByIndexedColumns() {
+        StudentFilter filter = new StudentFilter(EnumSet.of(Level.JUNIOR, Level.SENIOR), "ah", 10L, null);
+        Slice<StudentView> slice = new SliceImpl<>(List.of(view));
+        when(studentRepository.findViews(any(), any(Pageable.class), eq(false))).thenReturn(slice);
+
+        assertSame(slice, studentService.query(filter, 2, 20, "username", "DESC", false));
+        verify(studentRepository).findViews(any(), eq(PageRequest.of(2, 20,
+                Sort.by(Sort.Direction.DESC, "username").and(Sort.by(Sort.Direction.DESC, "id")))), eq(false));
+
+        assertThrows(AppExceptions.BadRequestException.class, () -> studentService.query(filter, 0, 20, "updatedAt", "ASC", true));
+        assertThrows(AppExceptions.BadRequestException.class, () -> studentService.getAll(0, 10, Sort.by("changeXid")));
+        verifyNoMoreInteractions(studentRepository);
     }
 
     @Test
     void shouldGetStudentById_Success() {
-        when(studentRepository.findById(1L)).thenReturn(Optional.of(student));
-        Student result = studentService.getById(1L);
-        assertEquals(1L, result.getId());
+        when(studentCache.findById(1L)).thenReturn(Optional.of(view));
+        StudentView result = studentService.getById(1L);
+        assertEquals(1L, result.id());
     }
 
     @Test
     void shouldThrowException_WhenGetStudentByIdNotFound() {
-        when(studentRepository.findById(99L)).thenReturn(Optional.empty());
+        when(studentCache.findById(99L)).thenReturn(Optional.empty());
         RuntimeException ex = assertThrows(RuntimeException.class, () -> studentService.getById(99L));
         assertTrue(ex.getMessage().contains("Student not found"));
     }
@@ -217,20 +373,22 @@ class ReleadSchoolManagementApplicationTests {
         Student updateInfo = new Student(null, "ahmed_new", Level.SENIOR);
 
         when(studentRepository.findById(1L)).thenReturn(Optional.of(student));
-        when(studentRepository.findByUsername("ahmed_new")).thenReturn(Optional.empty());
+        when(studentCache.findByUsername("ahmed_new")).thenReturn(Optional.empty());
         when(studentRepository.save(any(Student.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         Student updated = studentService.update(1L, updateInfo);
 
         assertEquals("ahmed_new", updated.getUsername());
         assertEquals(Level.SENIOR, updated.getLevel());
+        verify(studentCache).evict(view);
+        verify(studentCache).put(updated);
     }
 
     @Test
     void shouldThrowException_WhenUpdateStudentNotFound() {
         when(studentRepository.findById(99L)).thenReturn(Optional.empty());
         Student updateRequest = new Student();
-        assertThrows(RuntimeException.class, () -> studentService.update(99L, updateRequest));
+        assertThrows(AppExceptions.ResourceNotFoundException.class, () -> studentService.update(99L, updateRequest));
     }
 
     @Test
@@ -239,45 +397,964 @@ class ReleadSchoolManagementApplicationTests {
         Student updateRequest = new Student(null, "takenName", Level.SENIOR);
 
         when(studentRepository.findById(1L)).thenReturn(Optional.of(existingStudent));
-        when(studentRepository.findByUsername("takenName")).thenReturn(Optional.of(new Student(2L, "takenName", Level.SENIOR)));
+        when(studentCache.findByUsername("takenName")).thenReturn(Optional.of(new StudentView(2L, "takenName", Level.SENIOR, null)));
 
-        RuntimeException ex = assertThrows(RuntimeException.class, () -> studentService.update(1L, updateRequest));
+        RuntimeException ex = assertThrows(AppExceptions.ResourceConflictException.class, () -> studentService.update(1L, updateRequest));
         assertTrue(ex.getMessage().contains("username already exists"));
         verify(studentRepository, never()).save(any());
+
+        // pris entre la vérification et l'écriture : la violation d'unicité devient aussi un 409
+        when(studentCache.findByUsername("raceName")).thenReturn(Optional.empty());
+        when(studentRepository.save(any(Student.class))).thenThrow(new DataIntegrityViolationException("student_username_key"));
+        ex = assertThrows(AppExceptions.ResourceConflictException.class,
+                () -> studentService.update(1L, new Student(null, "raceName", null)));
+        assertTrue(ex.getMessage().contains("username already exists raceName"));
+        verify(studentCache, never()).put(any());
+        verify(countService, never()).levelChanged(any(), any());
+    }
+
+    @Test
+    void shouldPatchWithOneUpdate_AndRejectStaleVersions() {
+        StudentView before = new StudentView(1L, "ahmed", Level.FRESHMAN, 3L);
+        Student after = new Student(1L, "ahmed", Level.SENIOR);
+        after.setVersion(4L);
+        when(studentRepository.patch(1L, null, Level.SENIOR, 3L))
+                .thenReturn(Optional.of(new StudentRepositoryCustom.Patched(before, after)));
+
+        Student patched = studentService.patch(1L, new Student(null, null, Level.SENIOR), 3L);
+        assertEquals(4L, patched.getVersion());
+        verify(studentRepository, never()).findById(any());
+        verify(studentCache).evict(before);
+        verify(studentCache).put(after);
+        verify(countService).levelChanged(Level.FRESHMAN, Level.SENIOR);
+
+        // version périmée : 412 avec If-Match, 409 avec la version du corps
+        when(studentRepository.patch(eq(1L), any(), any(), eq(2L))).thenReturn(Optional.empty());
+        when(studentRepository.findViewById(1L)).thenReturn(Optional.of(new StudentView(1L, "ahmed", Level.SENIOR, 4L)));
+        Student change = new Student(null, "ali", null);
+        assertThrows(AppExceptions.PreconditionFailedException.class, () -> studentService.patch(1L, change, 2L));
+        change.setVersion(2L);
+        assertThrows(AppExceptions.ResourceConflictException.class, () -> studentService.patch(1L, change, null));
+
+        when(studentRepository.patch(eq(99L), any(), any(), any())).thenReturn(Optional.empty());
+        assertThrows(AppExceptions.ResourceNotFoundException.class, () -> studentService.patch(99L, change, null));
+
+        when(studentRepository.patch(eq(1L), eq("taken"), any(), any()))
+                .thenThrow(new DuplicateKeyException("student_username_key"));
+        RuntimeException ex = assertThrows(AppExceptions.ResourceConflictException.class,
+                () -> studentService.patch(1L, new Student(null, "taken", null), null));
+        assertTrue(ex.getMessage().contains("username already exists"));
+
+        assertThrows(AppExceptions.BadRequestException.class, () -> studentService.patch(1L, new Student(), null));
     }
 
     @Test
     void shouldDeleteStudent_Success() {
-        when(studentRepository.findById(1L)).thenReturn(Optional.of(student));
+        when(studentRepository.removeAllById(List.of(1L))).thenReturn(List.of(view));
         studentService.delete(1L);
-        verify(studentRepository).delete(student);
+        verify(studentCache).evict(view);
+        verify(countService).removed(Level.FRESHMAN);
+        verify(studentRepository, never()).findById(any());
+        verify(studentCache, never()).findById(any());
     }
 
     @Test
     void shouldThrowException_WhenDeleteStudentNotFound() {
-        when(studentRepository.findById(99L)).thenReturn(Optional.empty());
-        assertThrows(RuntimeException.class, () -> studentService.delete(99L));
-        verify(studentRepository, never()).delete(any());
+        when(studentRepository.removeAllById(List.of(99L))).thenReturn(List.of());
+        assertThrows(AppExceptions.ResourceNotFoundException.class, () -> studentService.delete(99L));
+        verify(studentCache, never()).evict(any());
+        verify(countService, never()).removed(any());
+    }
+
+    @Test
+    void shouldDeleteByLevelAndImportJob_InChunks_ThenRebuildCaches() {
+        when(studentRepository.removeByLevel(Level.JUNIOR)).thenReturn(12_000L);
+        when(studentRepository.removeByImportJob("job-1")).thenReturn(0L);
+
+        assertEquals(12_000L, studentService.deleteByLevel(Level.JUNIOR));
+        assertEquals(0L, studentService.deleteByImportJob("job-1"));
+
+        verify(studentCache, times(2)).clear();
+        verify(queryCache, times(2)).clear();
+        verify(countService, times(2)).reconcile();
+        verify(suggestService, times(2)).requestReload();
+    }
+
+    @Test
+    void shouldKeepDeletingChunks_UntilNoRowIsLeft() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        StudentRepositoryCustomImpl repository = new StudentRepositoryCustomImpl(jdbcTemplate, null);
+        ReflectionTestUtils.setField(repository, "deleteChunkSize", 5);
+        // le deuxième chunk est réduit par une suppression concurrente : il reste des lignes derrière lui
+        when(jdbcTemplate.update(anyString(), eq("JUNIOR"), eq(5))).thenReturn(5, 2, 4, 0);
+
+        assertEquals(11, repository.removeByLevel(Level.JUNIOR));
+        verify(jdbcTemplate, times(4)).update(anyString(), eq("JUNIOR"), eq(5));
     }
 
     @Test
     void shouldSearchByUsername() {
-        Page<Student> page = new PageImpl<>(Collections.singletonList(student));
-        when(studentRepository.findByUsernameContainingIgnoreCase(eq("ahmed"), any(Pageable.class))).thenReturn(page);
+        Page<StudentView> page = new PageImpl<>(Collections.singletonList(view));
+        when(studentRepository.searchByUsername(eq("%ahmed%"), eq("ahmed"), any(Pageable.class))).thenReturn(page);
+
+        Page<StudentView> result = studentService.searchByUsername("Ahmed", 0, 10);
+
+        assertEquals(1, result.getTotalElements());
+    }
+
+    @Test
+    void shouldSearchByUsername_EscapingWildcardsAndToleratingTypos() {
+        Page<StudentView> page = new PageImpl<>(Collections.singletonList(view));
+        when(studentRepository.fuzzySearchByUsername(eq("%a\\_b\\%%"), eq("a_b%"), any(Pageable.class))).thenReturn(page);
 
-        Page<Student> result = studentService.searchByUsername("ahmed", 0, 10);
+        Page<StudentView> result = studentService.searchByUsername("A_b%", 0, 10, true);
 
         assertEquals(1, result.getTotalElements());
+        verify(studentRepository, never()).searchByUsername(any(), any(), any());
     }
 
     @Test
     void shouldFilterByLevel() {
-        Page<Student> page = new PageImpl<>(Collections.singletonList(student));
-        when(studentRepository.findByLevel(eq(Level.FRESHMAN), any(Pageable.class))).thenReturn(page);
+        Page<StudentView> page = new PageImpl<>(Collections.singletonList(view));
+        when(studentRepository.findViewsByLevel(eq(Level.FRESHMAN), any(Pageable.class))).thenReturn(page);
 
-        Page<Student> result = studentService.filterByLevel(Level.FRESHMAN, 0, 10);
+        Page<StudentView> result = studentService.filterByLevel(Level.FRESHMAN, 0, 10);
 
         assertEquals(1, result.getTotalElements());
-        assertEquals(Level.FRESHMAN, result.getContent().get(0).getLevel());
+        assertEquals(Level.FRESHMAN, result.getContent().get(0).level());
+    }
+
+    @Test
+    void shouldFilterByLevelAsSlice_WithoutCounting() {
+        when(studentRepository.findSliceByLevel(eq(Level.FRESHMAN), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(view), PageRequest.of(0, 1), true));
+
+        Slice<StudentView> result = studentService.filterSliceByLevel(Level.FRESHMAN, 0, 1);
+
+        assertTrue(result.hasNext());
+        verify(studentRepository, never()).findViewsByLevel(any(), any());
+        verify(studentRepository, never()).count();
+    }
+
+    @Test
+    void shouldWrapPagesInStableEnvelope_WithTotalsOnlyWhenCounted() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        StudentView sara = new StudentView(7L, "sara", Level.SENIOR, 4L);
+
+        PageResponse<StudentView> page = PageResponse.of(new PageImpl<>(List.of(view, sara), PageRequest.of(1, 2), 5));
+        JsonNode counted = mapper.readTree(mapper.writeValueAsString(page));
+        assertEquals(mapper.readTree("""
+                {"content":[{"id":1,"username":"ahmed","level":"FRESHMAN"},{"id":7,"username":"sara","level":"SENIOR"}],
+                 "page":1,"size":2,"hasNext":true,"totalElements":5,"totalPages":3}"""), counted);
+
+        // sans count : ni totalElements ni totalPages, et aucune propriété de Spring (pageable, sort...)
+        PageResponse<StudentView> slice = PageResponse.of(new SliceImpl<>(List.of(sara), PageRequest.of(3, 2), false));
+        JsonNode sliced = mapper.readTree(mapper.writeValueAsString(slice));
+        assertEquals(mapper.readTree("""
+                {"content":[{"id":7,"username":"sara","level":"SENIOR"}],"page":3,"size":2,"hasNext":false}"""), sliced);
+    }
+
+    @Test
+    void shouldMapStudentViewProjection_FromEntityAndNativeColumns() throws Exception {
+        Student entity = new Student(5L, "mona", Level.SOPHOMORE);
+        entity.setVersion(2L);
+        assertEquals(new StudentView(5L, "mona", Level.SOPHOMORE, 2L), StudentView.of(entity));
+
+        // les requêtes natives sélectionnent VIEW_COLUMNS et passent par le mapping "StudentView" du Student :
+        // mêmes colonnes, dans l'ordre et avec les types du constructeur du record
+        ConstructorResult mapping = Student.class.getAnnotation(SqlResultSetMapping.class).classes()[0];
+        assertEquals(StudentView.class, mapping.targetClass());
+        assertEquals(StudentRepository.VIEW_COLUMNS, Arrays.stream(mapping.columns()).map(ColumnResult::name)
+                .collect(Collectors.joining(", ")));
+        assertEquals(Arrays.stream(StudentView.class.getRecordComponents()).map(RecordComponent::getType).toList(),
+                Arrays.stream(mapping.columns()).map(ColumnResult::type).toList());
+    }
+
+    @Test
+    void shouldMaintainCounts_AndReconcileDrift() {
+        when(studentRepository.countGroupedByLevel()).thenReturn(List.of(
+                new Object[]{Level.FRESHMAN, 3L}, new Object[]{Level.SENIOR, 2L}, new Object[]{null, 1L}));
+        StudentCountService counts = new StudentCountService(studentRepository);
+
+        StudentCounts initial = counts.getCounts();
+        assertEquals(6, initial.getTotal());
+        assertEquals(3L, initial.getByLevel().get(Level.FRESHMAN));
+        assertEquals(0L, initial.getByLevel().get(Level.JUNIOR));
+
+        counts.added(Level.JUNIOR);
+        counts.levelChanged(Level.FRESHMAN, Level.SENIOR);
+        counts.removed(null);
+        StudentCounts updated = counts.getCounts();
+        assertEquals(6, updated.getTotal());
+        assertEquals(Map.of(Level.FRESHMAN, 2L, Level.SOPHOMORE, 0L, Level.JUNIOR, 1L, Level.SENIOR, 3L),
+                updated.getByLevel());
+        verify(studentRepository, times(1)).countGroupedByLevel();
+
+        // la table n'a pas bougé : le recalage annule les écarts
+        counts.reconcile();
+        assertEquals(6, counts.getCounts().getTotal());
+        assertEquals(3L, counts.getCounts().getByLevel().get(Level.FRESHMAN));
+        assertEquals(0L, counts.getCounts().getByLevel().get(Level.JUNIOR));
+    }
+
+    @Test
+    void shouldCacheStudents_AndInvalidateOnWrites() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        StudentCache cache = new StudentCache(studentRepository, registry, 100, Duration.ofMinutes(10));
+        when(studentRepository.findViewById(1L)).thenReturn(Optional.of(view));
+        when(studentRepository.findViewByUsername("nobody")).thenReturn(Optional.empty());
+
+        assertEquals(Optional.of(view), cache.findById(1L));
+        assertEquals(Optional.of(view), cache.findById(1L));
+        verify(studentRepository, times(1)).findViewById(1L);
+
+        // les absences ne sont pas mises en cache
+        cache.findByUsername("nobody");
+        cache.findByUsername("nobody");
+        verify(studentRepository, times(2)).findViewByUsername("nobody");
+
+        Student renamed = new Student(1L, "ahmed2", Level.SENIOR);
+        cache.evict(view);
+        cache.put(renamed);
+        assertEquals(Optional.of(StudentView.of(renamed)), cache.findById(1L));
+        assertEquals(Optional.of(StudentView.of(renamed)), cache.findByUsername("ahmed2"));
+        verify(studentRepository, never()).findViewByUsername("ahmed2");
+
+        cache.clear();
+        cache.findById(1L);
+        verify(studentRepository, times(2)).findViewById(1L);
+        assertEquals(2.0, registry.get("cache.gets").tags("cache", "students.byId", "result", "hit").functionCounter().count());
+    }
+
+    @Test
+    void shouldCacheQueryPages_AndInvalidateOnlyAffectedOnes() {
+        Pageable p = PageRequest.of(0, 10);
+        when(studentRepository.findSliceByLevel(Level.JUNIOR, p)).thenReturn(new SliceImpl<>(List.of(), p, false));
+        when(studentRepository.findSliceByLevel(Level.FRESHMAN, p)).thenReturn(new SliceImpl<>(List.of(view), p, false));
+        when(studentRepository.searchSliceByUsername("%ahm%", "ahm", p)).thenReturn(new SliceImpl<>(List.of(view), p, false));
+
+        studentService.filterSliceByLevel(Level.JUNIOR, 0, 10);
+        studentService.filterSliceByLevel(Level.FRESHMAN, 0, 10);
+        studentService.searchSliceByUsername("AHM", 0, 10, false);
+        studentService.searchSliceByUsername("ahm", 0, 10, false);
+        verify(studentRepository, times(1)).searchSliceByUsername("%ahm%", "ahm", p);
+
+        // un SENIOR sans rapport avec "ahm" ne touche à aucune page
+        queryCache.studentChanged(null, new StudentView(8L, "sara", Level.SENIOR, null));
+        studentService.filterSliceByLevel(Level.JUNIOR, 0, 10);
+        studentService.searchSliceByUsername("ahm", 0, 10, false);
+        verify(studentRepository, times(1)).findSliceByLevel(Level.JUNIOR, p);
+        verify(studentRepository, times(1)).searchSliceByUsername("%ahm%", "ahm", p);
+
+        // ahmed passe de FRESHMAN à JUNIOR : les deux niveaux et la recherche sont rechargés
+        queryCache.studentChanged(view, new StudentView(1L, "ahmed", Level.JUNIOR, null));
+        studentService.filterSliceByLevel(Level.JUNIOR, 0, 10);
+        studentService.filterSliceByLevel(Level.FRESHMAN, 0, 10);
+        studentService.searchSliceByUsername("ahm", 0, 10, false);
+        verify(studentRepository, times(2)).findSliceByLevel(Level.JUNIOR, p);
+        verify(studentRepository, times(2)).findSliceByLevel(Level.FRESHMAN, p);
+        verify(studentRepository, times(2)).searchSliceByUsername("%ahm%", "ahm", p);
+
+        // une page chargée pendant une écriture n'est pas gardée
+        StudentQueryCache.Key key = StudentQueryCache.Key.level(Level.SENIOR, 0, 10, false);
+        queryCache.get(key, () -> {
+            queryCache.studentChanged(null, new StudentView(8L, "sara", Level.SENIOR, null));
+            return new SliceImpl<>(List.of(), p, false);
+        });
+        Slice<StudentView> reloaded = new SliceImpl<>(List.of(), p, false);
+        assertSame(reloaded, queryCache.get(key, () -> reloaded));
+    }
+
+    @Test
+    void shouldLookupManyStudents_InOneQuery_ReportingMissingKeys() {
+        StudentCache cache = new StudentCache(studentRepository, new SimpleMeterRegistry(), 100, Duration.ofMinutes(10));
+        StudentView sara = new StudentView(7L, "sara", Level.SENIOR, 0L);
+        when(studentRepository.findViewById(1L)).thenReturn(Optional.of(view));
+        when(studentRepository.lookupByIds(argThat(keys -> keys.size() == 2 && keys.containsAll(List.of(7L, 99L))))).thenReturn(List.of(sara));
+        cache.findById(1L);
+
+        // 1 est déjà en cache : seules les autres clés partent dans la requête groupée
+        Map<Long, StudentView> found = cache.findAllById(List.of(1L, 7L, 99L));
+        assertEquals(Map.of(1L, view, 7L, sara), found);
+        assertEquals(Map.of(7L, sara), cache.findAllById(List.of(7L)));
+        verify(studentRepository, times(1)).lookupByIds(any());
+
+        when(studentCache.findAllById(any())).thenReturn(Map.of(1L, view, 7L, sara));
+        when(studentCache.findAllByUsername(any())).thenReturn(Map.of("sara", sara));
+        StudentLookup lookup = studentService.lookup(Arrays.asList(7L, 99L, 1L, 7L, null), List.of("sara", "nobody"));
+        assertEquals(List.of(7L, 1L), List.copyOf(lookup.byId().keySet()));
+        assertEquals(List.of(99L), lookup.missingIds());
+        assertEquals(Map.of("sara", sara), lookup.byUsername());
+        assertEquals(List.of("nobody"), lookup.missingUsernames());
+
+        List<Long> tooMany = LongStream.rangeClosed(1, StudentService.MAX_LOOKUP_KEYS + 1).boxed().toList();
+        assertThrows(AppExceptions.BadRequestException.class, () -> studentService.lookup(tooMany, null));
+    }
+
+    @Test
+    void shouldReportOneStatusPerItem_InBulkWrites() {
+        StudentView sara = new StudentView(7L, "sara", Level.SENIOR, 0L);
+        when(studentCache.findAllByUsername(any())).thenReturn(Map.of("sara", sara));
+        when(studentRepository.insertAll(anyList())).thenAnswer(inv -> {
+            List<Student> students = inv.getArgument(0);
+            long id = 20;
+            for (Student s : students) {
+                s.setId(id++);
+            }
+            return students;
+        });
+
+        BulkResult created = studentService.bulkCreate(Arrays.asList(
+                new Student(null, "amine", Level.JUNIOR), new Student(null, " ", Level.JUNIOR),
+                new Student(null, "sara", Level.JUNIOR), new Student(null, "amine", Level.SENIOR),
+                new Student(null, "ali", Level.FRESHMAN)));
+        assertEquals(List.of(201, 400, 409, 409, 201), created.items().stream().map(BulkResult.Item::status).toList());
+        assertEquals(List.of(20L, 21L), created.items().stream().filter(BulkResult.Item::isSuccess).map(BulkResult.Item::id).toList());
+        assertEquals(2, created.succeeded());
+        assertEquals(3, created.failed());
+        verify(studentRepository, times(1)).insertAll(argThat(l -> l.size() == 2));
+        verify(countService, times(2)).added(any());
+        verify(queryCache).clear();
+
+        when(studentCache.findAllById(any())).thenReturn(Map.of(1L, view, 7L, sara));
+        // le cache (FRESHMAN) est en retard sur la ligne relue par la mise à jour (JUNIOR) : c'est elle qui compte
+        StudentView read = new StudentView(1L, "ahmed", Level.JUNIOR, 5L);
+        when(studentRepository.updateAll(anyList())).thenAnswer(inv -> inv.<List<Student>>getArgument(0).stream()
+                .map(c -> new StudentRepositoryCustom.Patched(read, new Student(c.getId(), read.username(), c.getLevel())))
+                .toList());
+        BulkResult updated = studentService.bulkUpdate(Arrays.asList(
+                new Student(1L, null, Level.SENIOR), new Student(99L, "x", null),
+                new Student(null, "y", null), new Student(1L, "z", null)));
+        assertEquals(List.of(200, 404, 400, 400), updated.items().stream().map(BulkResult.Item::status).toList());
+        verify(countService).levelChanged(Level.JUNIOR, Level.SENIOR);
+        verify(studentCache).evict(read);
+        verify(studentCache, never()).evict(view);
+
+        when(studentRepository.removeAllById(any())).thenReturn(List.of(sara));
+        BulkResult deleted = studentService.bulkDelete(Arrays.asList(7L, 8L, null));
+        assertEquals(List.of(204, 404, 400), deleted.items().stream().map(BulkResult.Item::status).toList());
+        verify(countService).removed(Level.SENIOR);
+
+        List<Long> tooMany = LongStream.rangeClosed(1, StudentService.MAX_BULK_ITEMS + 1).boxed().toList();
+        assertThrows(AppExceptions.BadRequestException.class, () -> studentService.bulkDelete(tooMany));
+    }
+
+    @Test
+    void shouldSuggestByPrefix_FromIndexAndOverlay() {
+        doAnswer(inv -> {
+            Consumer<Student> consumer = inv.getArgument(0);
+            consumer.accept(new Student(3L, "Amine", Level.SENIOR));
+            consumer.accept(student);
+            consumer.accept(new Student(2L, "ali", Level.JUNIOR));
+            consumer.accept(new Student(4L, "bilel", Level.FRESHMAN));
+            return null;
+        }).when(studentRepository).streamAll(any());
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        StudentSuggestService suggest = new StudentSuggestService(studentRepository, registry);
+        suggest.reload();
+
+        assertEquals(List.of("ahmed", "ali", "Amine"), suggest.suggest("A", null, 10).stream().map(StudentView::username).toList());
+        assertEquals(List.of("Amine"), suggest.suggest("am", Level.SENIOR, 10).stream().map(StudentView::username).toList());
+
+        suggest.put(new Student(5L, "Alia", Level.JUNIOR));
+        suggest.put(new Student(2L, "zied", Level.JUNIOR));
+        suggest.remove(1L);
+        assertEquals(List.of("Alia", "Amine"), suggest.suggest("a", null, 10).stream().map(StudentView::username).toList());
+        assertEquals(List.of("Alia"), suggest.suggest("a", null, 1).stream().map(StudentView::username).toList());
+        assertEquals(List.of(2L), suggest.suggest("z", Level.JUNIOR, 10).stream().map(StudentView::id).toList());
+        assertEquals(4, registry.get("students.suggest.entries").gauge().value());
+        assertTrue(registry.get("students.suggest.memory.per.username").gauge().value() > 0);
+        verify(studentRepository, times(1)).streamAll(any());
+    }
+
+    @Test
+    void shouldScrollByKeyset_CarryingSortInCursor() {
+        StudentView sara = new StudentView(7L, "sara", Level.SENIOR, null);
+        when(studentRepository.findPageAfter(null, null, "username", true, null, 3))
+                .thenReturn(new ArrayList<>(List.of(view, sara, new StudentView(9L, "ali", Level.JUNIOR, null))));
+
+        CursorPage<StudentView> first = studentService.scroll(null, null, "", 2, "username", "DESC");
+
+        assertEquals(List.of(view, sara), first.getContent());
+        assertTrue(first.isHasNext());
+        KeysetCursor next = KeysetCursor.decode(first.getNext());
+        assertEquals(new KeysetCursor("username", true, 7L, "sara"), next);
+
+        when(studentRepository.findPageAfter(Level.SENIOR, null, "username", true, next, 3)).thenReturn(List.of());
+        CursorPage<StudentView> last = studentService.scroll(Level.SENIOR, null, first.getNext(), 2, "id", "ASC");
+
+        assertTrue(last.getContent().isEmpty());
+        assertNull(last.getNext());
+        assertThrows(AppExceptions.BadRequestException.class, () -> studentService.scroll(null, null, "", 2, "level", "ASC"));
+        assertThrows(AppExceptions.BadRequestException.class, () -> studentService.scroll(null, null, "not-a-cursor", 2, null, null));
+    }
+
+    // --- CSV IMPORT TESTS ---
+
+    @Test
+    void shouldImportCsvInChunks_AndReportSummary() {
+        importProperties.setBatchSize(2);
+        String csv = "Username,Level\nahmed,senior\n,JUNIOR\nsara,unknown\nali,JUNIOR\n";
+        MockMultipartFile file = new MockMultipartFile("file", "students.csv", "text/csv", csv.getBytes(StandardCharsets.UTF_8));
+
+        when(studentRepository.insertIgnoringDuplicates(anyList()))
+                .thenAnswer(invocation -> {
+                    List<Student> chunk = invocation.getArgument(0);
+                    return chunk.size() == 2 ? 2 : 0;
+                });
+
+        ImportSummary summary = studentService.saveFromCsv(file);
+
+        assertEquals(2, summary.getInserted());
+        assertEquals(1, summary.getSkipped());
+        assertEquals(1, summary.getRejected());
+        assertEquals(List.of("line 3: username is required"), summary.getErrors());
+        verify(studentRepository, times(2)).insertIgnoringDuplicates(anyList());
+        verify(studentRepository, never()).findByUsername(any());
+    }
+
+    @Test
+    void shouldRunImportJobInBackground_ReportingStatusAndProgress(@TempDir Path dir) throws Exception {
+        importProperties.setSpoolDir(dir.toString());
+        ThreadPoolTaskExecutor executor = mock(ThreadPoolTaskExecutor.class);
+        IStudentService importer = mock(IStudentService.class);
+        ImportJobService jobs = new ImportJobService(importer, executor, importProperties);
+        ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+
+        MockMultipartFile file = new MockMultipartFile("file", "students.csv", "text/csv",
+                "Username,Level\nahmed,SENIOR\nsara,JUNIOR\n".getBytes(StandardCharsets.UTF_8));
+        ImportJob job = jobs.submit(file);
+        verify(executor).execute(task.capture());
+        assertEquals(ImportJob.Status.QUEUED, job.getStatus());
+        assertEquals(file.getSize(), job.getTotalBytes());
+        assertSame(job, jobs.get(job.getId()));
+        assertEquals(List.of(job), jobs.list());
+
+        doAnswer(inv -> {
+            ImportJob running = inv.getArgument(1);
+            assertEquals(ImportJob.Status.RUNNING, running.getStatus());
+            assertTrue(Files.exists(inv.<Path>getArgument(0)));
+            running.getSummary().addInserted(2);
+            running.setBytesRead(running.getTotalBytes());
+            return null;
+        }).when(importer).importFile(any(Path.class), eq(job));
+        task.getValue().run();
+
+        assertEquals(ImportJob.Status.COMPLETED, job.getStatus());
+        assertNotNull(job.getFinishedAt());
+        assertEquals(2, job.getSummary().getProcessed());
+        assertTrue(job.getRowsPerSecond() > 0);
+        assertNull(job.getEtaSeconds());
+        // le fichier spoolé est supprimé une fois le job terminé
+        assertFalse(Files.exists(dir.resolve(job.getId() + ".csv")));
+        assertThrows(AppExceptions.ResourceConflictException.class, () -> jobs.cancel(job.getId()));
+        assertThrows(AppExceptions.ResourceNotFoundException.class, () -> jobs.get("unknown"));
+
+        // annulé avant de démarrer : le fichier n'est jamais importé
+        ImportJob cancelled = jobs.submit(file);
+        verify(executor, times(2)).execute(task.capture());
+        // même fichier (même checksum, donc même checkpoint) tant que le premier job n'est pas terminé
+        assertThrows(AppExceptions.ResourceConflictException.class, () -> jobs.submit(file));
+        verify(executor, times(2)).execute(any(Runnable.class));
+        jobs.cancel(cancelled.getId());
+        task.getValue().run();
+        assertEquals(ImportJob.Status.CANCELLED, cancelled.getStatus());
+        verify(importer, never()).importFile(any(Path.class), eq(cancelled));
+
+        doThrow(new TaskRejectedException("full")).when(executor).execute(any(Runnable.class));
+        assertThrows(AppExceptions.ServiceUnavailableException.class, () -> jobs.submit(file));
+        assertEquals(2, jobs.list().size());
+        // aucun fichier spoolé ne reste après un refus
+        try (Stream<Path> spooled = Files.list(dir)) {
+            assertEquals(0, spooled.count());
+        }
+        doNothing().when(executor).execute(any(Runnable.class));
+        assertEquals(ImportJob.Status.QUEUED, jobs.submit(file).getStatus());
+    }
+
+    @Test
+    void shouldDeriveListingValidators_FromDatabaseChangeCounter() {
+        StudentChangeTracker changeTracker = new StudentChangeTracker(studentRepository);
+        long changedAt = 1_760_000_000_250L;
+        when(studentRepository.changeCounter()).thenReturn(new StudentRepositoryCustom.ChangeCounter(41, changedAt, changedAt + 500));
+        assertEquals("\"41\"", changeTracker.etag());
+        // modification commitée dans la seconde en cours : pas de Last-Modified fiable
+        assertEquals(-1, changeTracker.lastModified());
+
+        // même état relu plus tard, par cette instance ou une autre : mêmes validateurs, date du commit
+        when(studentRepository.changeCounter()).thenReturn(new StudentRepositoryCustom.ChangeCounter(41, changedAt, changedAt + 60_000));
+        assertEquals("\"41\"", changeTracker.etag());
+        assertEquals(changedAt, changeTracker.lastModified());
+
+        // écriture faite ailleurs (autre instance, SQL direct) : le compteur la révèle
+        when(studentRepository.changeCounter()).thenReturn(new StudentRepositoryCustom.ChangeCounter(42, changedAt + 61_000, changedAt + 65_000));
+        assertEquals("\"42\"", changeTracker.etag());
+        assertEquals(changedAt + 61_000, changeTracker.lastModified());
+    }
+
+    @Test
+    void shouldImportGzipCompressedCsv_InflatingOnTheFly() throws Exception {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream gz = CsvCodec.GZIP.encode(compressed)) {
+            gz.write("Username,Level\nahmed,SENIOR\nsara,JUNIOR\n".getBytes(StandardCharsets.UTF_8));
+        }
+        // le nom et le type annoncés ne comptent pas : seul le nombre magique gzip déclenche la décompression
+        MockMultipartFile file = new MockMultipartFile("file", "students.csv.gz", "application/gzip", compressed.toByteArray());
+        List<String> written = new ArrayList<>();
+        when(studentRepository.insertIgnoringDuplicates(anyList())).thenAnswer(invocation -> {
+            List<Student> chunk = invocation.getArgument(0);
+            chunk.forEach(st -> written.add(st.getUsername() + ":" + st.getLevel()));
+            return chunk.size();
+        });
+
+        assertTrue(Csv.hasCSVFormat(file));
+        ImportSummary summary = studentService.saveFromCsv(file);
+
+        assertEquals(2, summary.getInserted());
+        assertEquals(List.of("ahmed:SENIOR", "sara:JUNIOR"), written);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldBulkImportCsv_ThroughCopyAndMerge() {
+        String csv = "Username,Level\nahmed,SENIOR\n  ,JUNIOR\nsara,JUNIOR\nnew,SOPHOMORE\n";
+        MockMultipartFile file = new MockMultipartFile("file", "students.csv", "text/csv", csv.getBytes(StandardCharsets.UTF_8));
+
+        when(studentRepository.copyAndMerge(any(Iterator.class), eq(true))).thenAnswer(invocation -> {
+            Iterator<Student> rows = invocation.getArgument(0);
+            long staged = 0;
+            while (rows.hasNext()) {
+                rows.next();
+                staged++;
+            }
+            return new StudentRepositoryCustom.MergeCounts(staged, 1, 1);
+        });
+
+        ImportSummary summary = studentService.bulkSaveFromCsv(file, true);
+
+        assertEquals(1, summary.getInserted());
+        assertEquals(1, summary.getUpdated());
+        assertEquals(1, summary.getSkipped());
+        assertEquals(1, summary.getRejected());
+        verify(studentRepository, never()).insertIgnoringDuplicates(anyList());
+    }
+
+    @Test
+    void shouldImportSpooledFileInParallel_KeepingOriginalLineNumbers(@TempDir Path dir) throws Exception {
+        importProperties.setBatchSize(50);
+        importProperties.setParseParallelism(4);
+        importProperties.setParallelThresholdBytes(0);
+        StringBuilder csv = new StringBuilder("Username,Level\n");
+        for (int i = 0; i < 20000; i++) {
+            csv.append(i % 5000 == 0 || i >= 19998 ? "" : "user" + (i % 15000)).append(",SENIOR\n");
+        }
+        Path file = Files.writeString(dir.resolve("roster.csv"), csv);
+
+        Set<String> written = ConcurrentHashMap.newKeySet();
+        when(studentRepository.insertIgnoringDuplicates(anyList())).thenAnswer(invocation -> {
+            List<Student> chunk = invocation.getArgument(0);
+            chunk.forEach(st -> assertTrue(written.add(st.getUsername())));
+            return chunk.size();
+        });
+
+        ImportCheckpoint checkpoint = new ImportCheckpoint("sha", "roster.csv");
+        when(checkpointService.begin(any(), any())).thenReturn(checkpoint);
+        CountDownLatch advanced = new CountDownLatch(1);
+        doAnswer(inv -> {
+            advanced.countDown();
+            return null;
+        }).when(checkpointService).advance(eq(checkpoint), anyLong(), anyLong(), any());
+        // seul le dernier chunk rejette deux lignes : il ne se termine qu'après une avancée du checkpoint,
+        // qui tombe donc forcément sur une frontière de chunk intermédiaire
+        ImportSummary summary = new ImportSummary() {
+            @Override
+            public void addRejected(long count) {
+                try {
+                    if (count == 2 && !advanced.await(10, TimeUnit.SECONDS)) {
+                        throw new IllegalStateException("no checkpoint before the last chunk");
+                    }
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                super.addRejected(count);
+            }
+        };
+        ImportJob job = spy(new ImportJob("job", "roster.csv", Files.size(file)));
+        doReturn(summary).when(job).getSummary();
+        studentService.importFile(file, job);
+
+        assertEquals(6, summary.getRejected());
+        assertEquals(14997, summary.getInserted());
+        assertEquals(20000 - 6 - 14997, summary.getSkipped());
+        assertEquals(List.of("line 2: username is required", "line 5002: username is required",
+                "line 10002: username is required", "line 15002: username is required",
+                "line 20000: username is required", "line 20001: username is required"), summary.getErrors());
+        assertEquals(Files.size(file), job.getBytesRead());
+        ArgumentCaptor<Long> offsets = ArgumentCaptor.forClass(Long.class);
+        ArgumentCaptor<Long> lines = ArgumentCaptor.forClass(Long.class);
+        verify(checkpointService, atLeastOnce()).advance(eq(checkpoint), offsets.capture(), lines.capture(), any());
+        List<Long> advancedTo = offsets.getAllValues();
+        for (int i = 0; i < advancedTo.size(); i++) {
+            String committed = csv.substring(0, advancedTo.get(i).intValue());
+            assertTrue(i == 0 || advancedTo.get(i) > advancedTo.get(i - 1));
+            assertTrue(advancedTo.get(i) < Files.size(file));
+            assertTrue(committed.endsWith("\n"));
+            assertEquals(committed.chars().filter(c -> c == '\n').count(), lines.getAllValues().get(i));
+        }
+        verify(checkpointService).complete(checkpoint, summary);
+    }
+
+    @Test
+    void shouldImportSpooledFileInParallel_KeepingFirstOccurrenceOfDuplicateUsername(@TempDir Path dir) throws Exception {
+        importProperties.setBatchSize(20);
+        importProperties.setParseParallelism(4);
+        importProperties.setParallelThresholdBytes(0);
+        StringBuilder csv = new StringBuilder("Username,Level\n");
+        for (int i = 0; i < 4000; i++) {
+            String username = i == 10 || i == 3990 ? "twin" : "user" + i;
+            csv.append(username).append(i == 10 ? ",SENIOR\n" : ",JUNIOR\n");
+        }
+        Path file = Files.writeString(dir.resolve("roster.csv"), csv);
+        when(checkpointService.begin(any(), any())).thenReturn(new ImportCheckpoint("sha", "roster.csv"));
+
+        // le premier chunk n'est pas toujours parsé en premier : on répète pour couvrir plusieurs ordonnancements
+        for (int run = 0; run < 10; run++) {
+            Map<String, Level> written = new ConcurrentHashMap<>();
+            when(studentRepository.insertIgnoringDuplicates(anyList())).thenAnswer(invocation -> {
+                List<Student> chunk = invocation.getArgument(0);
+                chunk.forEach(st -> assertNull(written.put(st.getUsername(), st.getLevel())));
+                return chunk.size();
+            });
+
+            ImportJob job = new ImportJob("job" + run, "roster.csv", Files.size(file));
+            studentService.importFile(file, job);
+
+            assertEquals(Level.SENIOR, written.get("twin"));
+            assertEquals(3999, written.size());
+            assertEquals(3999, job.getSummary().getInserted());
+            assertEquals(1, job.getSummary().getSkipped());
+        }
+    }
+
+    @Test
+    void shouldImportSpooledFileInParallel_WithoutParsingFarAheadOfTheWriter(@TempDir Path dir) throws Exception {
+        importProperties.setBatchSize(10);
+        importProperties.setParseParallelism(4);
+        importProperties.setParallelThresholdBytes(0);
+        StringBuilder csv = new StringBuilder("Username,Level\n");
+        for (int i = 0; i < 8000; i++) {
+            csv.append(i < 3 ? "" : "user" + i).append(",JUNIOR\n");
+        }
+        Path file = Files.writeString(dir.resolve("roster.csv"), csv);
+        when(checkpointService.begin(any(), any())).thenReturn(new ImportCheckpoint("sha", "roster.csv"));
+        when(studentRepository.insertIgnoringDuplicates(anyList()))
+                .thenAnswer(invocation -> invocation.<List<Student>>getArgument(0).size());
+
+        // seul le premier chunk rejette trois lignes : sa fin reste bloquée, et aucun des 15 autres chunks
+        // (50 lots chacun) ne doit pouvoir finir d'être parsé en attendant
+        CountDownLatch firstChunkBlocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger chunksParsed = new AtomicInteger();
+        ImportSummary summary = new ImportSummary() {
+            @Override
+            public void addRejected(long count) {
+                try {
+                    if (count == 3) {
+                        firstChunkBlocked.countDown();
+                        release.await(10, TimeUnit.SECONDS);
+                    }
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                chunksParsed.incrementAndGet();
+                super.addRejected(count);
+            }
+        };
+        ImportJob job = spy(new ImportJob("job", "roster.csv", Files.size(file)));
+        doReturn(summary).when(job).getSummary();
+
+        Thread importer = new Thread(() -> studentService.importFile(file, job));
+        importer.start();
+        assertTrue(firstChunkBlocked.await(10, TimeUnit.SECONDS));
+        Thread.sleep(300);
+        int parsedWhileBlocked = chunksParsed.get();
+        release.countDown();
+        importer.join(10_000);
+
+        assertEquals(0, parsedWhileBlocked);
+        assertEquals(7997, summary.getInserted());
+        assertEquals(3, summary.getRejected());
+    }
+
+    @Test
+    void shouldResumeSpooledImport_FromLastCheckpoint(@TempDir Path dir) throws Exception {
+        importProperties.setBatchSize(2);
+        String prefix = "Username,Level\nahmed,SENIOR\n,JUNIOR\nsara,JUNIOR\n";
+        Path file = Files.writeString(dir.resolve("roster.csv"), prefix + "ali,SENIOR\nmona,SOPHOMORE\n");
+
+        ImportCheckpoint checkpoint = new ImportCheckpoint("sha", "roster.csv");
+        checkpoint.setCommittedOffset(prefix.length());
+        checkpoint.setCommittedLine(4);
+        checkpoint.setInserted(2);
+        checkpoint.setRejected(1);
+        when(checkpointService.begin("sha", "roster.csv")).thenReturn(checkpoint);
+        List<String> written = new ArrayList<>();
+        when(studentRepository.insertIgnoringDuplicates(anyList())).thenAnswer(invocation -> {
+            List<Student> chunk = invocation.getArgument(0);
+            chunk.forEach(st -> written.add(st.getUsername()));
+            return chunk.size();
+        });
+
+        ImportJob job = new ImportJob("job", "roster.csv", Files.size(file));
+        job.setChecksum("sha");
+        studentService.importFile(file, job);
+
+        assertEquals(List.of("ali", "mona"), written);
+        assertEquals(4, job.getSummary().getInserted());
+        assertEquals(1, job.getSummary().getRejected());
+        assertEquals(4, job.getResumedFromLine());
+        assertEquals(Files.size(file), job.getBytesRead());
+        verify(checkpointService).advance(checkpoint, Files.size(file), 6, job.getSummary());
+        verify(checkpointService).complete(checkpoint, job.getSummary());
+    }
+
+    @Test
+    void shouldKeepCheckpointingResumedImport_AfterFallbackToCommonsCsv(@TempDir Path dir) throws Exception {
+        importProperties.setBatchSize(1);
+        String prefix = "Username,Level\nahmed,SENIOR\n";
+        String rest = "ali,SENIOR\n\"zoé, x\",JUNIOR\nmona,SOPHOMORE\r\nomar,JUNIOR\n";
+        Path file = Files.write(dir.resolve("roster.csv"), (prefix + rest).getBytes(StandardCharsets.UTF_8));
+        long resumedAt = prefix.length();
+
+        ImportCheckpoint checkpoint = new ImportCheckpoint("sha", "roster.csv");
+        checkpoint.setCommittedOffset(resumedAt);
+        checkpoint.setCommittedLine(2);
+        checkpoint.setInserted(1);
+        when(checkpointService.begin("sha", "roster.csv")).thenReturn(checkpoint);
+        when(studentRepository.insertIgnoringDuplicates(anyList()))
+                .thenAnswer(invocation -> invocation.<List<Student>>getArgument(0).size());
+
+        ImportJob job = spy(new ImportJob("job", "roster.csv", Files.size(file)));
+        job.setChecksum("sha");
+        studentService.importFile(file, job);
+
+        // une ligne commitée par lot : chaque checkpoint tombe juste après sa ligne, y compris après le repli
+        String csv = prefix + rest;
+        InOrder order = inOrder(checkpointService);
+        for (String end : List.of("ali,SENIOR\n", "JUNIOR\n", "SOPHOMORE\r\n", "omar,JUNIOR\n")) {
+            String committed = csv.substring(0, csv.indexOf(end) + end.length());
+            order.verify(checkpointService).advance(eq(checkpoint), eq((long) committed.getBytes(StandardCharsets.UTF_8).length),
+                    eq(committed.chars().filter(c -> c == '\n').count()), any());
+        }
+        ArgumentCaptor<Long> bytesRead = ArgumentCaptor.forClass(Long.class);
+        verify(job, atLeastOnce()).setBytesRead(bytesRead.capture());
+        assertTrue(bytesRead.getAllValues().stream().allMatch(read -> read >= resumedAt));
+        assertEquals(Files.size(file), job.getBytesRead());
+        assertEquals(5, job.getSummary().getInserted());
+    }
+
+    @Test
+    void shouldResumeSpooledImportInParallel_FromLastCheckpoint(@TempDir Path dir) throws Exception {
+        importProperties.setBatchSize(20);
+        importProperties.setParseParallelism(4);
+        importProperties.setParallelThresholdBytes(0);
+        StringBuilder csv = new StringBuilder("Username,Level\n");
+        int committedOffset = 0;
+        for (int i = 0; i < 2000; i++) {
+            if (i == 1000) {
+                committedOffset = csv.length();
+            }
+            csv.append(i == 1500 ? "" : "user" + i).append(",JUNIOR\n");
+        }
+        Path file = Files.writeString(dir.resolve("roster.csv"), csv);
+
+        ImportCheckpoint checkpoint = new ImportCheckpoint("sha", "roster.csv");
+        checkpoint.setCommittedOffset(committedOffset);
+        checkpoint.setCommittedLine(1001);
+        checkpoint.setInserted(1000);
+        when(checkpointService.begin("sha", "roster.csv")).thenReturn(checkpoint);
+        Set<String> written = ConcurrentHashMap.newKeySet();
+        when(studentRepository.insertIgnoringDuplicates(anyList())).thenAnswer(invocation -> {
+            List<Student> chunk = invocation.getArgument(0);
+            chunk.forEach(st -> assertTrue(written.add(st.getUsername())));
+            return chunk.size();
+        });
+
+        ImportJob job = new ImportJob("job", "roster.csv", Files.size(file));
+        job.setChecksum("sha");
+        studentService.importFile(file, job);
+
+        assertEquals(IntStream.range(1000, 2000).filter(i -> i != 1500).mapToObj(i -> "user" + i).collect(Collectors.toSet()),
+                written);
+        assertEquals(1999, job.getSummary().getInserted());
+        assertEquals(1, job.getSummary().getRejected());
+        assertEquals(List.of("line 1502: username is required"), job.getSummary().getErrors());
+        assertEquals(1001, job.getResumedFromLine());
+        assertEquals(committedOffset, job.getResumedFromOffset());
+        assertEquals(Files.size(file), job.getBytesRead());
+        // les chunks sont découpés après l'offset commité : le checkpoint ne recule jamais
+        long resumedAt = committedOffset;
+        verify(checkpointService, never()).advance(eq(checkpoint), longThat(offset -> offset <= resumedAt), anyLong(), any());
+        verify(checkpointService).complete(checkpoint, job.getSummary());
+    }
+
+    // --- CSV EXPORT TESTS ---
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldExportCsv_StreamingRowsFromCursor() {
+        doAnswer(invocation -> {
+            Consumer<Student> consumer = invocation.getArgument(0);
+            consumer.accept(student);
+            consumer.accept(new Student(2L, "sara", Level.SENIOR));
+            return null;
+        }).when(studentRepository).streamAll(any(Consumer.class));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        studentService.exportCsv(out);
+
+        assertEquals("Username,Level\r\nahmed,FRESHMAN\r\nsara,SENIOR\r\n", out.toString(StandardCharsets.UTF_8));
+        verify(studentRepository, never()).findAll();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldExportChangesSinceCursor_WithTombstones() {
+        doAnswer(invocation -> {
+            Consumer<StudentRepositoryCustom.ChangeRow> consumer = invocation.getArgument(2);
+            consumer.accept(new StudentRepositoryCustom.ChangeRow(2L, "old", null, true));
+            consumer.accept(new StudentRepositoryCustom.ChangeRow(2L, "sara", Level.SENIOR, false));
+            return null;
+        }).when(studentRepository).streamChanges(eq(10L), eq(42L), any(Consumer.class));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        studentService.exportChangesCsv(10L, 42L, out);
+
+        assertEquals("Id,Username,Level,Deleted\r\n2,old,,true\r\n2,sara,SENIOR,false\r\n", out.toString(StandardCharsets.UTF_8));
+        verify(studentRepository, never()).streamAll(any(Consumer.class));
+    }
+
+    @Test
+    void shouldWriteColumnarExport_InAlignedRowGroups() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ColumnarStudentWriter writer = new ColumnarStudentWriter(out, 2)) {
+            writer.write(student);
+            writer.write(new Student(2L, "sàra", Level.SENIOR));
+            writer.write(new Student(3L, "ali", null));
+        }
+
+        ByteBuffer file = ByteBuffer.wrap(out.toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(0, file.limit() % 8);
+        byte[] magic = new byte[8];
+        file.get(magic);
+        assertEquals("RLDSTU01", new String(magic, StandardCharsets.US_ASCII));
+        int dictionarySize = file.getInt();
+        List<String> dictionary = new ArrayList<>();
+        for (int i = 0; i < dictionarySize; i++) {
+            byte[] name = new byte[file.getInt()];
+            file.get(name);
+            dictionary.add(new String(name, StandardCharsets.UTF_8));
+        }
+        assertEquals(Arrays.stream(Level.values()).map(Level::name).toList(), dictionary);
+
+        List<String> rows = new ArrayList<>();
+        while (true) {
+            file.position((file.position() + 7) & ~7);
+            int count = file.getInt();
+            int usernameBytes = file.getInt();
+            if (count == 0) {
+                assertEquals(3, file.getLong());
+                break;
+            }
+            long[] ids = new long[count];
+            file.asLongBuffer().get(ids);
+            file.position(file.position() + count * 8);
+            byte[] levels = new byte[count];
+            file.get(levels);
+            file.position((file.position() + 7) & ~7);
+            int[] offsets = new int[count + 1];
+            file.asIntBuffer().get(offsets);
+            file.position((file.position() + (count + 1) * 4 + 7) & ~7);
+            byte[] names = new byte[usernameBytes];
+            file.get(names);
+            for (int i = 0; i < count; i++) {
+                int code = levels[i] & 0xFF;
+                rows.add(ids[i] + ":" + new String(names, offsets[i], offsets[i + 1] - offsets[i], StandardCharsets.UTF_8)
+                        + ":" + (code == 255 ? "-" : dictionary.get(code)));
+            }
+        }
+        assertEquals(List.of("1:ahmed:FRESHMAN", "2:sàra:SENIOR", "3:ali:-"), rows);
+    }
+
+    @Test
+    void shouldNegotiateExportEncoding() {
+        assertEquals(CsvCodec.GZIP, CsvCodec.negotiate("br, gzip;q=0.8"));
+        assertEquals(CsvCodec.IDENTITY, CsvCodec.negotiate("gzip;q=0, deflate"));
+        assertEquals(CsvCodec.IDENTITY, CsvCodec.negotiate(null));
+    }
+
+    // --- CSV PARSER TESTS ---
+
+    private static List<String> readAll(String csv) throws Exception {
+        List<String> rows = new ArrayList<>();
+        try (StudentCsvReader reader = Csv.openStudents(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)))) {
+            while (reader.next()) {
+                rows.add(reader.lineNumber() + ":" + reader.username() + ":" + reader.level());
+            }
+        }
+        return rows;
+    }
+
+    @Test
+    void shouldParseCsv_OnFastPath() throws Exception {
+        String csv = "\uFEFFLevel , USERNAME\r\n senior , ahmed \r\n\r\nJunior,sara\nbogus,ali\n,\nSOPHOMORE";
+
+        assertEquals(List.of("2:ahmed:SENIOR", "4:sara:JUNIOR", "5:ali:FRESHMAN", "6::FRESHMAN", "7:null:SOPHOMORE"), readAll(csv));
+    }
+
+    @Test
+    void shouldFallBackToCommonsCsv_WhenQuotedOrUnusualInput() throws Exception {
+        String quotedMidFile = "Username,Level\nahmed,SENIOR\n\"sa,ra\",junior\nali,JUNIOR\n";
+        assertEquals(List.of("2:ahmed:SENIOR", "3:sa,ra:JUNIOR", "4:ali:JUNIOR"), readAll(quotedMidFile));
+
+        String extraColumns = "Username,Email,Level\nahmed,a@b.c,senior\n";
+        assertEquals(List.of("2:ahmed:SENIOR"), readAll(extraColumns));
+    }
+
+    @Test
+    void shouldReportSamePhysicalLineNumbers_BeforeAndAfterFallback() throws Exception {
+        // lignes vides avant et après le passage à commons-csv, puis un champ sur deux lignes
+        String csv = "Username,Level\n\nahmed,SENIOR\n\n\"sa,ra\",junior\n\nali,JUNIOR\n\"mul\nti\",SENIOR\nzied,JUNIOR\n";
+        assertEquals(List.of("3:ahmed:SENIOR", "5:sa,ra:JUNIOR", "7:ali:JUNIOR", "9:mul\nti:SENIOR", "10:zied:JUNIOR"),
+                readAll(csv));
+
+        // le même fichier sans guillemets reste sur le chemin rapide : mêmes numéros pour les lignes communes
+        String fast = "Username,Level\n\nahmed,SENIOR\n\nsara,junior\n\nali,JUNIOR\n";
+        assertEquals(List.of("3:ahmed:SENIOR", "5:sara:JUNIOR", "7:ali:JUNIOR"), readAll(fast));
+
+        // header inattendu : tout le fichier passe par commons-csv
+        String unusual = "Username,Email,Level\n\nahmed,a@b.c,senior\n\nali,,JUNIOR\n";
+        assertEquals(List.of("3:ahmed:SENIOR", "5:ali:JUNIOR"), readAll(unusual));
+    }
+
+    @Test
+    void shouldKeepByteOffsets_AfterFallbackToCommonsCsv() throws Exception {
+        // octets multiples, CRLF, ligne vide, champ sur deux lignes et dernière ligne sans fin de ligne
+        String csv = "Username,Level\nahmed,SENIOR\n\"zoé, x\",junior\r\n\r\n\"mul\nti\",SENIOR\nali,JUNIOR";
+        List<String> rowEnds = List.of("ahmed,SENIOR\n", "junior\r\n", "ti\",SENIOR\n", "ali,JUNIOR");
+        byte[] bytes = csv.getBytes(StandardCharsets.UTF_8);
+
+        List<Long> offsets = new ArrayList<>();
+        try (StudentCsvReader reader = Csv.openStudents(new ByteArrayInputStream(bytes))) {
+            while (reader.next()) {
+                offsets.add(reader.offset());
+            }
+        }
+
+        List<Long> expected = rowEnds.stream()
+                .map(end -> (long) csv.substring(0, csv.indexOf(end) + end.length()).getBytes(StandardCharsets.UTF_8).length)
+                .toList();
+        assertEquals(expected, offsets);
+        assertEquals(bytes.length, offsets.get(offsets.size() - 1));
     }
-}
\ No newline at end of file
+}
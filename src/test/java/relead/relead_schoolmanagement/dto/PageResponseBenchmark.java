@@ -0,0 +1,59 @@
+package relead.relead_schoolmanagement.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import relead.relead_schoolmanagement.entities.Level;
+import relead.relead_schoolmanagement.entities.Student;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of one listing page: the former Page&lt;Student&gt; JSON against PageResponse&lt;StudentView&gt;.
+ * Run with -prof gc to compare allocation per page.
+ * Run with: java -cp target/test-classes:target/classes:&lt;test classpath&gt; org.openjdk.jmh.Main PageResponseBenchmark -prof gc
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PageResponseBenchmark {
+
+    @Param({"20", "100"})
+    private int size;
+
+    private final ObjectMapper mapper = JsonMapper.builder().addModule(new JavaTimeModule()).build();
+    private PageImpl<Student> entities;
+    private PageResponse<StudentView> views;
+
+    @Setup
+    public void setUp() {
+        List<Student> students = new ArrayList<>(size);
+        for (long i = 1; i <= size; i++) {
+            Student s = new Student(i, "student" + i, Level.values()[(int) (i % 4)]);
+            s.setChangeXid(1_000_000 + i);
+            s.setUpdatedAt(Instant.now());
+            students.add(s);
+        }
+        entities = new PageImpl<>(students, PageRequest.of(3, size), 1_000_000);
+        views = PageResponse.of(entities.map(StudentView::of));
+    }
+
+    @Benchmark
+    public byte[] pageOfEntities() throws Exception {
+        return mapper.writeValueAsBytes(entities);
+    }
+
+    @Benchmark
+    public byte[] pageResponseOfViews() throws Exception {
+        return mapper.writeValueAsBytes(views);
+    }
+}
@@ -0,0 +1,124 @@
+package relead.relead_schoolmanagement.repositories;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.*;
+import relead.relead_schoolmanagement.entities.BlockSequence;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hibernate inserts of 10^5 students, flushed every 500 rows with hibernate.jdbc.batch_size=500 and
+ * reWriteBatchedInserts: IDENTITY ids (one INSERT ... RETURNING per row, batching disabled) against
+ * {@link BlockSequence} ids (ids known up front, multi-row INSERTs). The bench tables are created on first run.
+ * Run with: java -Dbench.url=jdbc:postgresql://localhost:5432/school_db -Dbench.user=postgres -Dbench.password=...
+ * -cp target/test-classes:target/classes:&lt;test classpath&gt; org.openjdk.jmh.Main StudentInsertBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StudentInsertBenchmark {
+
+    private static final int ROWS = 100_000;
+    private static final int BATCH_SIZE = 500;
+
+    @Entity
+    @Table(name = "student_insert_bench_identity")
+    public static class IdentityStudent {
+        @Id
+        @GeneratedValue(strategy = GenerationType.IDENTITY)
+        Long id;
+        String username;
+        String level;
+    }
+
+    @Entity
+    @Table(name = "student_insert_bench_block")
+    public static class BlockStudent {
+        @Id
+        @BlockSequence(sequence = "student_insert_bench_seq")
+        Long id;
+        String username;
+        String level;
+    }
+
+    private SessionFactory sessionFactory;
+
+    @Setup
+    public void setUp() {
+        sessionFactory = new Configuration()
+                .addAnnotatedClass(IdentityStudent.class)
+                .addAnnotatedClass(BlockStudent.class)
+                .setProperty("hibernate.connection.url", System.getProperty("bench.url", "jdbc:postgresql://localhost:5432/school_db")
+                        + "?reWriteBatchedInserts=true")
+                .setProperty("hibernate.connection.username", System.getProperty("bench.user", "postgres"))
+                .setProperty("hibernate.connection.password", System.getProperty("bench.password", ""))
+                .setProperty("hibernate.jdbc.batch_size", String.valueOf(BATCH_SIZE))
+                .setProperty("hibernate.order_inserts", "true")
+                .buildSessionFactory();
+        sessionFactory.inTransaction(session -> session.doWork(connection -> {
+            try (var st = connection.createStatement()) {
+                st.execute("CREATE TABLE IF NOT EXISTS student_insert_bench_identity (id bigint GENERATED BY DEFAULT AS IDENTITY "
+                        + "PRIMARY KEY, username varchar(255) NOT NULL UNIQUE, level varchar(255))");
+                st.execute("CREATE TABLE IF NOT EXISTS student_insert_bench_block (id bigint PRIMARY KEY, "
+                        + "username varchar(255) NOT NULL UNIQUE, level varchar(255))");
+                st.execute("CREATE SEQUENCE IF NOT EXISTS student_insert_bench_seq");
+            }
+        }));
+    }
+
+    @Setup(Level.Iteration)
+    public void truncate() {
+        sessionFactory.inTransaction(session -> session.doWork(connection -> {
+            try (var st = connection.createStatement()) {
+                st.execute("TRUNCATE student_insert_bench_identity, student_insert_bench_block");
+            }
+        }));
+    }
+
+    @TearDown
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    public void identity() {
+        sessionFactory.inTransaction(session -> {
+            for (int i = 0; i < ROWS; i++) {
+                IdentityStudent s = new IdentityStudent();
+                s.username = "student." + i;
+                s.level = "JUNIOR";
+                persist(session, s, i);
+            }
+        });
+    }
+
+    @Benchmark
+    public void blockSequence() {
+        sessionFactory.inTransaction(session -> {
+            for (int i = 0; i < ROWS; i++) {
+                BlockStudent s = new BlockStudent();
+                s.username = "student." + i;
+                s.level = "JUNIOR";
+                persist(session, s, i);
+            }
+        });
+    }
+
+    private static void persist(Session session, Object student, int i) {
+        session.persist(student);
+        if ((i + 1) % BATCH_SIZE == 0) {
+            session.flush();
+            session.clear();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package relead.relead_schoolmanagement.repositories;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.postgresql.ds.PGSimpleDataSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import relead.relead_schoolmanagement.entities.Level;
+import relead.relead_schoolmanagement.entities.Student;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * {@link StudentRepositoryCustomImpl#insertIfAbsent} against PostgreSQL: concurrent creates of one username, each on
+ * its own connection, leave a single row and a single winner; the others get an empty result (409 in
+ * StudentService.create). Runs in a throwaway schema holding a minimal student table, and is skipped unless a
+ * database is given: mvn test -Dtest=StudentInsertIfAbsentTest -Dtest.db.url=jdbc:postgresql://localhost:5432/school_db
+ * -Dtest.db.user=postgres -Dtest.db.password=...
+ */
+class StudentInsertIfAbsentTest {
+
+    private static final int THREADS = 16;
+    private static final int ROUNDS = 20;
+
+    private PGSimpleDataSource dataSource;
+    private JdbcTemplate admin;
+    private String schema;
+
+    @BeforeEach
+    void setUp() {
+        String url = System.getProperty("test.db.url");
+        assumeTrue(url != null, "test.db.url is not set");
+        dataSource = new PGSimpleDataSource();
+        dataSource.setURL(url);
+        dataSource.setUser(System.getProperty("test.db.user", "postgres"));
+        dataSource.setPassword(System.getProperty("test.db.password", ""));
+        schema = "student_it_" + Long.toString(System.nanoTime(), 36);
+        new JdbcTemplate(dataSource).execute("CREATE SCHEMA " + schema);
+        dataSource.setCurrentSchema(schema);
+        admin = new JdbcTemplate(dataSource);
+        admin.execute("CREATE TABLE student (id bigserial PRIMARY KEY, username varchar(255) NOT NULL UNIQUE, "
+                + "level varchar(255), version bigint NOT NULL DEFAULT 0)");
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (admin != null) {
+            admin.execute("DROP SCHEMA " + schema + " CASCADE");
+        }
+    }
+
+    @Test
+    void shouldInsertSameUsernameOnlyOnce_UnderConcurrentInserts() throws Exception {
+        List<List<Optional<Student>>> rounds = race(round -> "same." + round);
+
+        for (int round = 0; round < ROUNDS; round++) {
+            List<Student> winners = rounds.get(round).stream().flatMap(Optional::stream).toList();
+            assertEquals(1, winners.size(), "round " + round);
+            assertEquals(winners.get(0).getId(), admin.queryForObject(
+                    "SELECT id FROM student WHERE username = ?", Long.class, "same." + round));
+        }
+        assertEquals(ROUNDS, admin.queryForObject("SELECT count(*) FROM student", Long.class));
+    }
+
+    @Test
+    void shouldInsertEveryDistinctUsername_UnderConcurrentInserts() throws Exception {
+        List<List<Optional<Student>>> rounds = race(round -> null);
+
+        rounds.forEach(results -> assertTrue(results.stream().allMatch(Optional::isPresent)));
+        assertEquals((long) ROUNDS * THREADS, admin.queryForObject("SELECT count(*) FROM student", Long.class));
+    }
+
+    // Chaque thread garde sa connexion ; à chaque tour tous partent ensemble. usernames donne le username
+    // commun du tour, ou null pour un username différent par thread
+    private List<List<Optional<Student>>> race(IntFunction<String> usernames) throws Exception {
+        List<SingleConnectionDataSource> connections = new ArrayList<>();
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<StudentRepositoryCustomImpl> repositories = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                SingleConnectionDataSource connection = new SingleConnectionDataSource(dataSource.getConnection(), true);
+                connections.add(connection);
+                repositories.add(new StudentRepositoryCustomImpl(new JdbcTemplate(connection), null));
+            }
+            List<List<Optional<Student>>> rounds = new ArrayList<>();
+            for (int round = 0; round < ROUNDS; round++) {
+                String shared = usernames.apply(round);
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<Optional<Student>>> futures = new ArrayList<>();
+                for (int t = 0; t < THREADS; t++) {
+                    StudentRepositoryCustomImpl repository = repositories.get(t);
+                    String username = shared != null ? shared : "student." + round + "." + t;
+                    Callable<Optional<Student>> insert = () -> {
+                        start.await();
+                        return repository.insertIfAbsent(new Student(null, username, Level.JUNIOR));
+                    };
+                    futures.add(pool.submit(insert));
+                }
+                start.countDown();
+                List<Optional<Student>> results = new ArrayList<>();
+                for (Future<Optional<Student>> future : futures) {
+                    results.add(future.get());
+                }
+                rounds.add(results);
+            }
+            return rounds;
+        } finally {
+            pool.shutdown();
+            connections.forEach(SingleConnectionDataSource::destroy);
+        }
+    }
+}
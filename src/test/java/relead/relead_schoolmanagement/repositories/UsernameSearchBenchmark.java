@@ -0,0 +1,108 @@
+package relead.relead_schoolmanagement.repositories;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One search page (page query + count, as a Page response does) over 10^6 usernames: the former
+ * upper(username) LIKE query generated for findByUsernameContainingIgnoreCase against the trigram-indexed search.
+ * Needs a PostgreSQL with pg_trgm; the bench table is created on first run.
+ * Run with: java -Dbench.url=jdbc:postgresql://localhost:5432/school_db -Dbench.user=postgres -Dbench.password=...
+ * -cp target/test-classes:target/classes:&lt;test classpath&gt; org.openjdk.jmh.Main UsernameSearchBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UsernameSearchBenchmark {
+
+    private static final int ROWS = 1_000_000;
+    private static final String TABLE = "student_search_bench";
+
+    private static final String LEGACY_WHERE = " FROM " + TABLE + " WHERE upper(username) LIKE upper(?) ESCAPE '\\'";
+    private static final String TRIGRAM_WHERE = " FROM " + TABLE + " WHERE lower(username) LIKE ?";
+    private static final String FUZZY_WHERE = TRIGRAM_WHERE + " OR ? <% lower(username)";
+    private static final String ORDER = " ORDER BY similarity(lower(username), ?) DESC, id LIMIT 10";
+
+    @Param({"c0ffee", "42.1234"})
+    private String query;
+
+    private Connection connection;
+
+    @Setup
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(System.getProperty("bench.url", "jdbc:postgresql://localhost:5432/school_db"),
+                System.getProperty("bench.user", "postgres"), System.getProperty("bench.password", ""));
+        try (Statement st = connection.createStatement()) {
+            st.execute("CREATE EXTENSION IF NOT EXISTS pg_trgm");
+            st.execute("CREATE TABLE IF NOT EXISTS " + TABLE + " (id bigserial PRIMARY KEY, username varchar(255) NOT NULL UNIQUE)");
+            try (ResultSet rs = st.executeQuery("SELECT count(*) FROM " + TABLE)) {
+                rs.next();
+                if (rs.getLong(1) < ROWS) {
+                    st.execute("TRUNCATE " + TABLE);
+                    st.execute("INSERT INTO " + TABLE + " (username) SELECT substr(md5(i::text), 1, 10) || '.' || i "
+                            + "FROM generate_series(1, " + ROWS + ") AS i");
+                }
+            }
+            st.execute("CREATE INDEX IF NOT EXISTS " + TABLE + "_trgm ON " + TABLE + " USING gin (lower(username) gin_trgm_ops)");
+            st.execute("ANALYZE " + TABLE);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public void containingIgnoreCase(Blackhole bh) throws SQLException {
+        String pattern = "%" + query + "%";
+        page("SELECT id, username" + LEGACY_WHERE + " LIMIT 10", "SELECT count(*)" + LEGACY_WHERE, bh, pattern);
+    }
+
+    @Benchmark
+    public void trigram(Blackhole bh) throws SQLException {
+        String pattern = StudentRepository.containsPattern(query);
+        page("SELECT id, username" + TRIGRAM_WHERE + ORDER, "SELECT count(*)" + TRIGRAM_WHERE, bh, pattern, query);
+    }
+
+    @Benchmark
+    public void trigramFuzzy(Blackhole bh) throws SQLException {
+        String pattern = StudentRepository.containsPattern(query);
+        page("SELECT id, username" + FUZZY_WHERE + ORDER, "SELECT count(*)" + FUZZY_WHERE, bh, pattern, query, query);
+    }
+
+    private void page(String select, String count, Blackhole bh, String... args) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(select)) {
+            for (int i = 0; i < args.length; i++) {
+                ps.setString(i + 1, args[i]);
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    bh.consume(rs.getString(2));
+                }
+            }
+        }
+        try (PreparedStatement ps = connection.prepareStatement(count)) {
+            // la requête de comptage n'a pas le paramètre du ORDER BY
+            int params = ps.getParameterMetaData().getParameterCount();
+            for (int i = 0; i < params; i++) {
+                ps.setString(i + 1, args[i]);
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                bh.consume(rs.getLong(1));
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package relead.relead_schoolmanagement.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import relead.relead_schoolmanagement.dto.StudentView;
+import relead.relead_schoolmanagement.entities.Level;
+import relead.relead_schoolmanagement.entities.Student;
+import relead.relead_schoolmanagement.repositories.StudentRepository;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Latency of one autocomplete lookup over 10^6 usernames, with a few hundred pending overlay entries.
+ * Run with: java -cp target/test-classes:target/classes:&lt;test classpath&gt; org.openjdk.jmh.Main SuggestBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SuggestBenchmark {
+
+    private static final Level[] LEVELS = Level.values();
+
+    @Param({"1000000"})
+    private int rows;
+
+    @Param({"a", "c0ff", "ab12.99"})
+    private String prefix;
+
+    private StudentSuggestService suggest;
+
+    @Setup
+    public void setUp() {
+        StudentRepository repository = Mockito.mock(StudentRepository.class);
+        Mockito.doAnswer(inv -> {
+            Consumer<Student> consumer = inv.getArgument(0);
+            for (long i = 1; i <= rows; i++) {
+                consumer.accept(new Student(i, username(i), LEVELS[(int) (i % LEVELS.length)]));
+            }
+            return null;
+        }).when(repository).streamAll(Mockito.any());
+        suggest = new StudentSuggestService(repository, new SimpleMeterRegistry());
+        suggest.reload();
+        for (long i = rows + 1; i <= rows + 500; i++) {
+            suggest.put(new Student(i, username(i), Level.SENIOR));
+        }
+    }
+
+    private static String username(long i) {
+        return Long.toHexString(i * 0x9E3779B97F4A7C15L).substring(0, 4) + "." + i;
+    }
+
+    @Benchmark
+    public List<StudentView> prefix() {
+        return suggest.suggest(prefix, null, 10);
+    }
+
+    @Benchmark
+    public List<StudentView> prefixAndLevel() {
+        return suggest.suggest(prefix, Level.SENIOR, 10);
+    }
+}
@@ -0,0 +1,74 @@
+package relead.relead_schoolmanagement.util;
+
+import org.apache.commons.csv.CSVPrinter;
+import org.openjdk.jmh.annotations.*;
+import relead.relead_schoolmanagement.entities.Level;
+import relead.relead_schoolmanagement.entities.Student;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time and size of a full export written plain or gzip-encoded. The number of bytes that would go over the
+ * wire is reported as the "bytes" secondary result (summed over the measured iterations).
+ * Run with: java -cp target/test-classes:target/classes:&lt;test classpath&gt; org.openjdk.jmh.Main CsvExportBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CsvExportBenchmark {
+
+    @Param({"1000000"})
+    private int rows;
+
+    @Param({"IDENTITY", "GZIP"})
+    private CsvCodec codec;
+
+    private List<Student> students;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Wire {
+        public long bytes;
+    }
+
+    @Setup
+    public void generate() {
+        Level[] levels = Level.values();
+        students = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            students.add(new Student((long) i, "student." + i, levels[i % levels.length]));
+        }
+    }
+
+    @Benchmark
+    public void export(Wire wire) throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        try (CSVPrinter printer = Csv.openPrinter(codec.encode(out))) {
+            for (Student student : students) {
+                Csv.printStudent(printer, student);
+            }
+        }
+        wire.bytes = out.count;
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
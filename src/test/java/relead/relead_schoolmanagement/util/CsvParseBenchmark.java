@@ -0,0 +1,58 @@
+package relead.relead_schoolmanagement.util;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the byte-level tokenizer with the commons-csv reader on a generated roster.
+ * Run with: java -cp target/test-classes:target/classes:&lt;test classpath&gt; org.openjdk.jmh.Main CsvParseBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CsvParseBenchmark {
+
+    @Param({"100000"})
+    private int rows;
+
+    private byte[] csv;
+
+    @Setup
+    public void generate() {
+        String[] levels = {"FRESHMAN", "sophomore", "Junior", "SENIOR", ""};
+        StringBuilder sb = new StringBuilder("Username,Level\n");
+        for (int i = 0; i < rows; i++) {
+            sb.append("student.").append(i).append(',').append(levels[i % levels.length]).append('\n');
+        }
+        csv = sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public void commonsCsv(Blackhole bh) throws IOException {
+        try (StudentCsvReader reader = CommonsStudentCsvReader.withHeaderRecord(new ByteArrayInputStream(csv))) {
+            consume(reader, bh);
+        }
+    }
+
+    @Benchmark
+    public void fastTokenizer(Blackhole bh) throws IOException {
+        try (StudentCsvReader reader = Csv.openStudents(new ByteArrayInputStream(csv))) {
+            consume(reader, bh);
+        }
+    }
+
+    private static void consume(StudentCsvReader reader, Blackhole bh) {
+        while (reader.next()) {
+            bh.consume(reader.username());
+            bh.consume(reader.level());
+        }
+    }
+}